@@ -0,0 +1,491 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: ActorDistanceVector.java
+ * description: To run every router of dvrouter as an actor that exchanges distance vectors with its neighbours.
+ */
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ActorDistanceVector runs distance vector the way real routers do: every
+ * router is an actor with its own mailbox, which knows only its own vector and
+ * the costs of its own links, and learns everything else from the vectors its
+ * neighbours send it. There are no rounds; actors run whenever they have mail,
+ * in whatever order the scheduler picks.
+ *
+ * An actor that receives mail is handed to the executor, which drains the
+ * mailbox and then sends its neighbours a copy of the entries that changed, in
+ * one update shared by all of them.
+ * On Java 21 and later the executor starts a virtual thread for each of these
+ * runs, so the routers need no more threads than the executor has busy;
+ * before that, a ForkJoinPool drains the mailboxes on a few platform threads.
+ * The vectors are kept in one n * n array, as dvrouter prints them, so there
+ * can be at most 46340 routers.
+ *
+ * An update from the neighbour a route goes through is always taken, even if
+ * it is worse (the RIP rule), and updates are poisoned in reverse: a router
+ * tells the neighbour it goes through that it cannot reach the destination. A
+ * router whose entry got worse asks its neighbours for their entries again, as
+ * it keeps no copy of their vectors. A cost above the sum of all link costs
+ * cannot be a real route, so it counts as unreachable, which bounds counting
+ * to infinity round longer loops. Equal costs keep the lowest-numbered
+ * neighbour, so the converged vectors are exactly those of BellmanFordEngine.
+ *
+ * Changes are events sent to the two ends of the link once the network is
+ * quiet. A count of messages sent and not yet processed is the quiescence
+ * detector: the actor that takes it to zero has converged the network.
+ */
+class ActorDistanceVector {
+    private final int numberOfNodes;
+    // entry (i, j) at index i * n + j, row i only read and written by actor i
+    private final int[] cost;
+    private final int[] through;
+    private final Actor[] actors;
+    // 0 to n - 1, the destinations of a request for every entry
+    private final int[] everyRouter;
+    private final ExecutorService executor;
+    private final CsrGraph graph;
+    // costs above this cannot be a route (sum of all link costs)
+    private volatile int infinity;
+
+    // messages sent and not yet processed
+    private final AtomicLong pending = new AtomicLong();
+    private volatile CountDownLatch quiet;
+    private volatile Throwable failure;
+
+    // for the stats of the last convergence
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+    private long nanos;
+
+    /**
+     * @param graph    network topology, only changed through applyChange
+     * @param executor to run the actors on, see newExecutor
+     * @throws IllegalArgumentException if the vectors do not fit an array
+     */
+    public ActorDistanceVector(CsrGraph graph, ExecutorService executor) {
+        this.graph = graph;
+        this.executor = executor;
+        numberOfNodes = graph.getNumberOfNodes();
+        int n = numberOfNodes;
+        BellmanFordEngine.checkSize(n);
+        cost = new int[n * n];
+        through = new int[n * n];
+        actors = new Actor[n];
+        everyRouter = new int[n];
+        for (int i = 0; i < n; i++) {
+            actors[i] = new Actor(i);
+            everyRouter[i] = i;
+        }
+    }
+
+    /**
+     * @param threads threads of the pool if there are no virtual threads, 0 for
+     *                one per processor
+     * @return executor starting a virtual thread per task on Java 21 and later,
+     *         otherwise a ForkJoinPool
+     */
+    public static ExecutorService newExecutor(int threads) {
+        try {
+            // found at run time, so this still builds and runs on older Java
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            // FIFO scheduling of the actors
+            return new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        }
+    }
+
+    /**
+     * @return true if the executor starts virtual threads
+     */
+    public static boolean isVirtual(ExecutorService executor) {
+        return !(executor instanceof ForkJoinPool);
+    }
+
+    /**
+     * To converge from scratch: every router starts knowing only itself
+     */
+    public void start() {
+        for (int i = 0; i < numberOfNodes; i++) {
+            int row = i * numberOfNodes;
+            for (int j = 0; j < numberOfNodes; j++) {
+                cost[row + j] = -1;
+                through[row + j] = i;
+            }
+            cost[row + i] = 0;
+        }
+        converge(new Runnable() {
+            public void run() {
+                for (int i = 0; i < numberOfNodes; i++) {
+                    send(actors[i], new Start());
+                }
+            }
+        });
+    }
+
+    /**
+     * To re-converge after a link change, which must already be in the graph
+     *
+     * @param u       one end of the link (0-based)
+     * @param v       other end of the link (0-based)
+     * @param oldCost cost of the link before the change, 0 if there was none
+     */
+    public void applyChange(final int u, final int v, final int oldCost) {
+        converge(new Runnable() {
+            public void run() {
+                send(actors[u], new LinkChange(v, oldCost));
+                send(actors[v], new LinkChange(u, oldCost));
+            }
+        });
+    }
+
+    /**
+     * To send the events that start a convergence and wait until the network is
+     * quiet
+     */
+    private void converge(Runnable events) {
+        long linkCosts = 0;
+        for (int u = 0; u < numberOfNodes; u++) {
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                linkCosts += graph.cost(e);
+            }
+        }
+        infinity = (int) Math.min(Integer.MAX_VALUE / 2, linkCosts / 2);
+        updates.reset();
+        requests.reset();
+        entries.reset();
+        long begin = System.nanoTime();
+        quiet = new CountDownLatch(1);
+        // held while the events are sent, so the count cannot reach zero early
+        pending.incrementAndGet();
+        events.run();
+        processed(1);
+        try {
+            quiet.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        nanos = System.nanoTime() - begin;
+    }
+
+    private void send(Actor actor, Object message) {
+        if (message instanceof Update) {
+            updates.increment();
+            entries.add(((Update) message).count);
+        }
+        pending.incrementAndGet();
+        actor.mailbox.add(message);
+        if (actor.scheduled.compareAndSet(false, true)) {
+            executor.execute(actor);
+        }
+    }
+
+    /**
+     * @param count number of messages whose processing has finished, after
+     *              everything they caused was sent
+     */
+    private void processed(int count) {
+        if (pending.addAndGet(-count) == 0) {
+            quiet.countDown();
+        }
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return converged costs, entry (i, j) at index i * n + j
+     */
+    public int[] getCosts() {
+        return cost;
+    }
+
+    /**
+     * @return converged next hops, entry (i, j) at index i * n + j
+     */
+    public int[] getThroughs() {
+        return through;
+    }
+
+    /**
+     * @return convergence time and message counts of the last convergence
+     */
+    public String getStats() {
+        return "actors converged in " + String.format("%.3f", nanos / 1e6) + " ms: " + updates.sum() + " updates ("
+                + entries.sum() + " entries), " + requests.sum() + " requests";
+    }
+
+    /**
+     * A router's vector was started
+     */
+    private static class Start {
+    }
+
+    /**
+     * A neighbour's entries, copied from its vector when it sent them, so a
+     * router only ever reads its own vector and its mail. One update is shared
+     * by every neighbour; the next hop of each entry is in it only so that a
+     * neighbour can tell the routes that go through itself (poisoned reverse).
+     */
+    private static class Update {
+        final int from;
+        final int[] dests;
+        final int[] costs;
+        final int[] throughs;
+        final int count;
+
+        Update(int from, int[] dests, int[] costs, int[] throughs, int count) {
+            this.from = from;
+            this.dests = dests;
+            this.costs = costs;
+            this.throughs = throughs;
+            this.count = count;
+        }
+    }
+
+    /**
+     * A neighbour asking for entries again, all of them if dests is null
+     */
+    private static class Request {
+        final int from;
+        final int[] dests;
+        final int count;
+
+        Request(int from, int[] dests, int count) {
+            this.from = from;
+            this.dests = dests;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The link to a neighbour changed, the new cost being in the graph
+     */
+    private static class LinkChange {
+        final int neighbour;
+        final int oldCost;
+
+        LinkChange(int neighbour, int oldCost) {
+            this.neighbour = neighbour;
+            this.oldCost = oldCost;
+        }
+    }
+
+    /**
+     * A router. Only its own run touches its row and its sets, and a run never
+     * overlaps another run of the same actor.
+     */
+    private class Actor implements Runnable {
+        final int id;
+        final int row;
+        final ConcurrentLinkedQueue<Object> mailbox = new ConcurrentLinkedQueue<Object>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        // entries to send to every neighbour
+        final IntSet changed;
+        // entries to ask every neighbour for again
+        final IntSet wanted;
+
+        Actor(int id) {
+            this.id = id;
+            row = id * numberOfNodes;
+            changed = new IntSet(numberOfNodes);
+            wanted = new IntSet(numberOfNodes);
+        }
+
+        public void run() {
+            try {
+                do {
+                    int count = 0;
+                    Object message;
+                    while ((message = mailbox.poll()) != null) {
+                        receive(message);
+                        count++;
+                    }
+                    flush();
+                    scheduled.set(false);
+                    processed(count);
+                    // mail that came after the last poll and found it still scheduled
+                } while (!mailbox.isEmpty() && scheduled.compareAndSet(false, true));
+            } catch (Throwable t) {
+                failure = t;
+                quiet.countDown();
+            }
+        }
+
+        private void receive(Object message) {
+            if (message instanceof Update) {
+                Update update = (Update) message;
+                int linkCost = graph.getCost(id, update.from);
+                if (linkCost == 0) {
+                    // link went away after this was sent
+                    return;
+                }
+                for (int x = 0; x < update.count; x++) {
+                    int j = update.dests[x];
+                    int c = update.costs[x];
+                    // poisoned reverse
+                    if (c == -1 || update.throughs[x] == id) {
+                        c = -1;
+                    } else {
+                        c += linkCost;
+                    }
+                    offer(j, update.from, c);
+                }
+            } else if (message instanceof Request) {
+                Request request = (Request) message;
+                if (request.dests == null) {
+                    send(actors[request.from], update(everyRouter, numberOfNodes));
+                } else {
+                    send(actors[request.from], update(request.dests, request.count));
+                }
+            } else if (message instanceof LinkChange) {
+                LinkChange change = (LinkChange) message;
+                int k = change.neighbour;
+                int linkCost = graph.getCost(id, k);
+                // routes through k now cost what k advertised plus the new link
+                for (int j = 0; j < numberOfNodes; j++) {
+                    if (j != id && through[row + j] == k && cost[row + j] != -1) {
+                        int advertised = cost[row + j] - change.oldCost;
+                        set(j, k, linkCost == 0 ? -1 : advertised + linkCost);
+                    }
+                }
+                if (linkCost != 0 && (change.oldCost == 0 || linkCost < change.oldCost)) {
+                    // k may now offer better routes
+                    requests.increment();
+                    send(actors[k], new Request(id, null, numberOfNodes));
+                }
+            } else {
+                // Start
+                changed.add(id);
+            }
+        }
+
+        /**
+         * To take a neighbour's offer for an entry: always from the neighbour
+         * the entry goes through, otherwise if it is cheaper, or as cheap
+         * through a lower-numbered neighbour
+         *
+         * @param c cost through neighbour k, -1 if k cannot reach j
+         */
+        private void offer(int j, int k, int c) {
+            if (j == id) {
+                return;
+            }
+            if (c > infinity) {
+                c = -1;
+            }
+            int current = cost[row + j];
+            if (through[row + j] == k && current != -1) {
+                set(j, k, c);
+            } else if (c != -1 && (current == -1 || c < current || (c == current && k < through[row + j]))) {
+                set(j, k, c);
+            }
+        }
+
+        private void set(int j, int k, int c) {
+            int current = cost[row + j];
+            int hop = c == -1 ? id : k;
+            if (c == current && hop == through[row + j]) {
+                return;
+            }
+            cost[row + j] = c;
+            through[row + j] = hop;
+            changed.add(j);
+            if (c == -1 || (current != -1 && c > current)) {
+                // worse, so an offer turned down before may be the best now
+                wanted.add(j);
+            }
+        }
+
+        /**
+         * @return update with a copy of the entries to count destinations
+         */
+        private Update update(int[] dests, int count) {
+            int[] costs = new int[count];
+            int[] throughs = new int[count];
+            for (int x = 0; x < count; x++) {
+                costs[x] = cost[row + dests[x]];
+                throughs[x] = through[row + dests[x]];
+            }
+            return new Update(id, dests, costs, throughs, count);
+        }
+
+        /**
+         * To send the changed entries to every neighbour and ask them for the
+         * entries that got worse
+         */
+        private void flush() {
+            if (changed.size() > 0) {
+                Update update = update(changed.toArray(), changed.size());
+                for (int e = graph.begin(id); e < graph.end(id); e++) {
+                    send(actors[graph.target(e)], update);
+                }
+                changed.clear();
+            }
+            if (wanted.size() > 0) {
+                int[] dests = wanted.toArray();
+                for (int e = graph.begin(id); e < graph.end(id); e++) {
+                    requests.increment();
+                    send(actors[graph.target(e)], new Request(id, dests, dests.length));
+                }
+                wanted.clear();
+            }
+        }
+    }
+
+    /**
+     * A set of router numbers, kept both as a list and as bits
+     */
+    private static class IntSet {
+        private final long[] bits;
+        private int[] list = new int[16];
+        private int size;
+
+        IntSet(int capacity) {
+            bits = new long[(capacity + 63) >>> 6];
+        }
+
+        void add(int x) {
+            if ((bits[x >>> 6] & (1L << x)) != 0) {
+                return;
+            }
+            bits[x >>> 6] |= 1L << x;
+            if (size == list.length) {
+                list = Arrays.copyOf(list, size * 2);
+            }
+            list[size++] = x;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(list, size);
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                bits[list[i] >>> 6] = 0;
+            }
+            size = 0;
+        }
+    }
+}
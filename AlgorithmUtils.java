@@ -1,23 +1,21 @@
 
 /**
  * author: Andrew Smith
- * last edited: 12/05/19
+ * last edited: 10/17/26
  * file: AlgorithmUtils.java
  * description: To aid in simulating a network (graph) of routers and the {Dijkstra, Bellman-Ford} algorithm. The topology file must have line-by-line entries of the form <src> <dest> <cost>. The changes file must have the same format. The messages file must have line-by-line entries of the form <src> <dest> <message>.
  */
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Set;
 
 /**
  * AlgorithmUtils contain some general utility methods for both Dijkstra and
  * Bellman-Ford
  */
 public class AlgorithmUtils {
-    private static Scanner fileScanner;
-
     /**
      * Printing press
      * 
@@ -48,6 +46,38 @@ public class AlgorithmUtils {
         return adjMat;
     }
 
+    /**
+     * To update the graph based on a single change given by the changes file in
+     * the form of a Link. A cost of -999 removes the link, and a link that is not
+     * in the graph yet is added.
+     * 
+     * @param graph  graph to update
+     * @param change change to integrate
+     * @return cost of the link before the change (0 if there was none)
+     */
+    public static int applyChange(CsrGraph graph, Link change) {
+        return applyChange(graph, change.getSrc(), change.getDest(), change.getCost());
+    }
+
+    /**
+     * To update the graph based on a single change given by the changes file
+     * 
+     * @param graph graph to update
+     * @param src   one end of the link (1-based)
+     * @param dest  other end of the link (1-based)
+     * @param cost  new cost of the link, -999 to remove it
+     * @return cost of the link before the change (0 if there was none)
+     */
+    public static int applyChange(CsrGraph graph, int src, int dest, int cost) {
+        int oldCost = graph.getCost(src - 1, dest - 1);
+        if (cost == -999) {
+            graph.setCost(src - 1, dest - 1, 0);
+        } else {
+            graph.setCost(src - 1, dest - 1, cost);
+        }
+        return oldCost;
+    }
+
     /**
      * To print the entire adjacency matrix
      * 
@@ -163,14 +193,10 @@ public class AlgorithmUtils {
      * @return number of discrete nodes (routers)
      */
     public static int getNumberOfNodes(List<Link> l) {
-        List<Integer> discreteNodes = new ArrayList<Integer>();
+        Set<Integer> discreteNodes = new HashSet<Integer>();
         for (Link link : l) {
-            if (!discreteNodes.contains(link.getSrc())) {
-                discreteNodes.add(link.getSrc());
-            }
-            if (!discreteNodes.contains(link.getDest())) {
-                discreteNodes.add(link.getDest());
-            }
+            discreteNodes.add(link.getSrc());
+            discreteNodes.add(link.getDest());
         }
         return discreteNodes.size();
     }
@@ -183,18 +209,12 @@ public class AlgorithmUtils {
      */
     public static List<Link> getTopology(String fileName) {
         // System.out.println("lsrouter::getTopology");
-        List<Link> ret = new ArrayList<Link>();
         try {
-            fileScanner = new Scanner(new File(fileName));
-            while (fileScanner.hasNextLine()) {
-                String[] line = fileScanner.nextLine().split(" ");
-                ret.add(new Link(Integer.parseInt(line[0]), Integer.parseInt(line[1]), Integer.parseInt(line[2])));
-            }
-
-        } catch (FileNotFoundException e) {
+            return LinkFile.read(fileName).toLinks();
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        return ret;
+        return new ArrayList<Link>();
     }
 
     /**
@@ -204,23 +224,11 @@ public class AlgorithmUtils {
      * @return the list of messages got
      */
     public static List<Message> getMessages(String fileName) {
-        List<Message> ret = new ArrayList<Message>();
         try {
-            fileScanner = new Scanner(new File(fileName));
-            while (fileScanner.hasNextLine()) {
-                String fileLine = fileScanner.nextLine();
-                int index = fileLine.indexOf(" ");
-                int src = Integer.parseInt(fileLine.substring(0, index));
-                fileLine = fileLine.substring(index + 1);
-                index = fileLine.indexOf(" ");
-                int dest = Integer.parseInt(fileLine.substring(0, index));
-                String msg = fileLine.substring(index + 1);
-                ret.add(new Message(src, dest, msg));
-            }
-
-        } catch (FileNotFoundException e) {
+            return MessageFile.read(fileName).toMessages();
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        return ret;
+        return new ArrayList<Message>();
     }
-}
\ No newline at end of file
+}
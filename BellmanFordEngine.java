@@ -0,0 +1,577 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: BellmanFordEngine.java
+ * description: To compute dvrouter's distance vectors in synchronous Bellman-Ford rounds, from scratch or warm under an update policy.
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A BellmanFordEngine converges the distance vectors of every router in
+ * synchronous (Jacobi) rounds. Entry (i, j) is router i's cost to router j and
+ * the neighbour it goes through, like a Distance, kept flat at index i * n + j
+ * in primitive arrays. A cost of -1 means j cannot be reached.
+ *
+ * Each round every router rebuilds its vector from the vectors its neighbours
+ * had at the end of the previous round, so the rows of a round are independent
+ * and can be split between workers. The old and new vectors live in two pairs
+ * of arrays that are swapped at the end of the round, so rounds allocate
+ * nothing. Equal costs keep the lowest-numbered neighbour, which is the tie
+ * break distanceVector has always converged to.
+ *
+ * After a change, update re-converges warm, from the vectors routers already
+ * have, the way RIP does: a router always takes what the neighbour it goes
+ * through advertises, even if it is worse, and takes any other neighbour's
+ * offer only if it is better. That is where a failed link can count to
+ * infinity, so the update policy decides what a neighbour advertises for the
+ * routes it goes through the receiver for: everything (none), nothing
+ * (split horizon, the receiver's stale route then timing out after
+ * ROUTE_TIMEOUT rounds), or unreachable (poisoned reverse). Costs above the
+ * infinity bound count as unreachable. Every policy converges to the same
+ * vectors as a run from scratch, as long as the bound is above every
+ * least cost, but in different numbers of rounds.
+ *
+ * After its first round, update only rebuilds the rows that can change: a
+ * row whose own vector and whose neighbours' vectors did not change in the
+ * last round, and that has no route timing out, would come out the same. So
+ * each round works off a list of the rows that changed in the last one and
+ * their neighbours, and takes the same rounds to the same vectors as
+ * rebuilding every row, while a change that only reaches part of the network
+ * only costs that part.
+ *
+ * With a worklist, run converges with an SpfaEngine instead of in rounds,
+ * into the same arrays, so update works after it the same way. update keeps
+ * to rounds, as the update policies and the route timeout are counted in
+ * rounds.
+ */
+class BellmanFordEngine {
+    // update policies
+    public static final int NONE = 0;
+    public static final int SPLIT_HORIZON = 1;
+    public static final int POISONED_REVERSE = 2;
+    // rounds a route its next hop stops advertising survives (as RIP's 180 s
+    // timeout is six 30 s updates)
+    public static final int ROUTE_TIMEOUT = 6;
+
+    private final int numberOfNodes;
+    // vectors at the end of the last round
+    private int[] cost, through;
+    // vectors being built this round
+    private int[] nextCost, nextThrough;
+    private int rounds;
+    // rows to rebuild this round, every row but in update after the first, and
+    // the list for the next round
+    private int[] active, nextActive;
+    private int activeCount;
+    // whether each row rebuilt this round changed, or has a route timing out
+    private final boolean[] rowChanged;
+    private final boolean[] rowAging;
+    // rows already on the list for the next round
+    private final boolean[] scheduled;
+    // rounds each entry's next hop has not advertised it, for split horizon
+    private byte[] age, nextAge;
+    private int policy = NONE;
+    // costs above this count as unreachable, 0 for the sum of all link costs
+    private int infinity;
+    private int bound;
+    // re-converging from the vectors of the last run
+    private boolean warm;
+    // converges run from scratch instead of the rounds (null if off)
+    private SpfaEngine worklist;
+
+    // stats of the last run or update, one slot per worker, each added to
+    // once per row
+    private final long[] updates;
+    private final long[] relaxations;
+    private long nanos;
+
+    // workers rebuilding rows in parallel (null runs them serially)
+    private final ExecutorService workers;
+    private final List<Callable<Boolean>> tasks;
+    private CsrGraph graph;
+
+    /**
+     * @param numberOfNodes   number of routers
+     * @param workers         pool to rebuild rows on, or null for one thread
+     * @param numberOfWorkers number of threads in the pool
+     * @throws IllegalArgumentException if n * n entries do not fit in an array
+     */
+    public BellmanFordEngine(int numberOfNodes, ExecutorService workers, int numberOfWorkers) {
+        this.numberOfNodes = numberOfNodes;
+        int size = checkSize(numberOfNodes);
+        cost = new int[size];
+        through = new int[size];
+        nextCost = new int[size];
+        nextThrough = new int[size];
+        active = new int[numberOfNodes];
+        nextActive = new int[numberOfNodes];
+        rowChanged = new boolean[numberOfNodes];
+        rowAging = new boolean[numberOfNodes];
+        scheduled = new boolean[numberOfNodes];
+        this.workers = workers;
+        updates = new long[numberOfWorkers];
+        relaxations = new long[numberOfWorkers];
+        tasks = new ArrayList<Callable<Boolean>>();
+        if (workers != null) {
+            // each worker takes every numberOfWorkers-th row
+            for (int w = 0; w < numberOfWorkers; w++) {
+                final int start = w;
+                final int step = numberOfWorkers;
+                tasks.add(new Callable<Boolean>() {
+                    public Boolean call() {
+                        boolean change = false;
+                        for (int x = start; x < activeCount; x += step) {
+                            int i = active[x];
+                            change |= warm ? updateRow(i, start) : relaxRow(i, start);
+                        }
+                        return change;
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return number of entries in the vectors of every router, n * n
+     * @throws IllegalArgumentException if they do not fit in an array, whose
+     *                                  index i * n + j would overflow
+     */
+    public static int checkSize(int numberOfNodes) {
+        long size = (long) numberOfNodes * numberOfNodes;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(
+                    numberOfNodes + " routers do not fit their distance vectors in an array (at most 46340)");
+        }
+        return (int) size;
+    }
+
+    /**
+     * @param policy NONE, SPLIT_HORIZON or POISONED_REVERSE
+     */
+    public void setPolicy(int policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * @param infinity least cost that counts as unreachable minus one, 0 for the
+     *                 sum of all link costs (which no least cost exceeds)
+     */
+    public void setInfinity(int infinity) {
+        this.infinity = infinity;
+    }
+
+    /**
+     * @param on true to run from scratch with a worklist (SPFA), which is serial,
+     *           false for rounds
+     */
+    public void setWorklist(boolean on) {
+        worklist = on ? new SpfaEngine(numberOfNodes) : null;
+    }
+
+    /**
+     * Bellman-Ford. Unlike Dijkstra, this algorithm has no source.
+     *
+     * @param graph graph of network to run algorithm on
+     */
+    public void run(CsrGraph graph) {
+        long begin = System.nanoTime();
+        start(graph);
+        warm = false;
+        if (worklist != null) {
+            worklist.converge(graph, cost, through, bound);
+            rounds = worklist.getPasses();
+            updates[0] = worklist.getUpdates();
+            relaxations[0] = worklist.getRelaxations();
+            this.graph = null;
+            nanos = System.nanoTime() - begin;
+            return;
+        }
+        int n = numberOfNodes;
+        // to get initial distance vectors
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                cost[i * n + j] = j == i ? 0 : -1;
+                through[i * n + j] = i;
+            }
+            for (int e = graph.begin(i); e < graph.end(i); e++) {
+                cost[i * n + graph.target(e)] = graph.cost(e);
+                through[i * n + graph.target(e)] = graph.target(e);
+            }
+        }
+        converge();
+        nanos = System.nanoTime() - begin;
+    }
+
+    /**
+     * To re-converge after a change to the graph, starting from the vectors of
+     * the last run or update
+     *
+     * @param graph graph of network, already changed
+     */
+    public void update(CsrGraph graph) {
+        long begin = System.nanoTime();
+        start(graph);
+        if (age == null) {
+            age = new byte[cost.length];
+            nextAge = new byte[cost.length];
+        }
+        warm = true;
+        converge();
+        nanos = System.nanoTime() - begin;
+    }
+
+    private void start(CsrGraph graph) {
+        this.graph = graph;
+        if (infinity > 0) {
+            bound = infinity;
+        } else {
+            long linkCosts = 0;
+            for (int u = 0; u < numberOfNodes; u++) {
+                for (int e = graph.begin(u); e < graph.end(u); e++) {
+                    linkCosts += graph.cost(e);
+                }
+            }
+            bound = (int) Math.min(Integer.MAX_VALUE / 2, linkCosts / 2);
+        }
+        for (int w = 0; w < updates.length; w++) {
+            updates[w] = 0;
+            relaxations[w] = 0;
+        }
+    }
+
+    private void converge() {
+        rounds = 0;
+        activeCount = numberOfNodes;
+        for (int i = 0; i < numberOfNodes; i++) {
+            active[i] = i;
+        }
+        boolean change = true;
+        // interate until convergence
+        while (change) {
+            long begin = Metrics.begin();
+            change = round();
+            Metrics.end(Metrics.DV_ROUND, begin);
+            rounds++;
+            // swap at the barrier
+            int[] temp = cost;
+            cost = nextCost;
+            nextCost = temp;
+            temp = through;
+            through = nextThrough;
+            nextThrough = temp;
+            if (warm) {
+                byte[] ages = age;
+                age = nextAge;
+                nextAge = ages;
+                schedule();
+            }
+        }
+        Metrics.count(Metrics.RELAXATIONS, getRelaxations());
+        this.graph = null;
+    }
+
+    /**
+     * To list the rows the next round of an update rebuilds, after the swap:
+     * the rows that changed this round and their neighbours, and the rows with
+     * a route timing out. A row rebuilt this round and not the next is copied
+     * into the next buffers, so that both hold it while it is left out.
+     */
+    private void schedule() {
+        int count = 0;
+        for (int x = 0; x < activeCount; x++) {
+            int i = active[x];
+            if (rowChanged[i]) {
+                for (int e = graph.begin(i); e < graph.end(i); e++) {
+                    count = schedule(graph.target(e), count);
+                }
+            }
+            if (rowChanged[i] || rowAging[i]) {
+                count = schedule(i, count);
+            }
+        }
+        int n = numberOfNodes;
+        for (int x = 0; x < activeCount; x++) {
+            int i = active[x];
+            if (!scheduled[i]) {
+                System.arraycopy(cost, i * n, nextCost, i * n, n);
+                System.arraycopy(through, i * n, nextThrough, i * n, n);
+                System.arraycopy(age, i * n, nextAge, i * n, n);
+            }
+        }
+        for (int x = 0; x < count; x++) {
+            scheduled[nextActive[x]] = false;
+        }
+        int[] rows = active;
+        active = nextActive;
+        nextActive = rows;
+        activeCount = count;
+    }
+
+    /**
+     * To put row i on the list for the next round, once
+     *
+     * @return number of rows on it
+     */
+    private int schedule(int i, int count) {
+        if (!scheduled[i]) {
+            scheduled[i] = true;
+            nextActive[count++] = i;
+        }
+        return count;
+    }
+
+    /**
+     * @return true if any entry changed this round
+     */
+    private boolean round() {
+        if (workers == null) {
+            boolean change = false;
+            for (int x = 0; x < activeCount; x++) {
+                int i = active[x];
+                change |= warm ? updateRow(i, 0) : relaxRow(i, 0);
+            }
+            return change;
+        }
+        try {
+            boolean change = false;
+            for (Future<Boolean> result : workers.invokeAll(tasks)) {
+                change |= result.get();
+            }
+            return change;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * To rebuild the vector of router i from its neighbours' vectors of the
+     * previous round
+     *
+     * @param w slot of the worker, for the stats
+     * @return true if the vector changed
+     */
+    private boolean relaxRow(int i, int w) {
+        int n = numberOfNodes;
+        int row = i * n;
+        for (int j = 0; j < n; j++) {
+            nextCost[row + j] = -1;
+            nextThrough[row + j] = i;
+        }
+        nextCost[row + i] = 0;
+        // counted here and added to the worker's slot once, as the slots of
+        // the workers share a cache line
+        long relaxed = 0;
+        // neighbours are sorted, so a later neighbour only wins if it is cheaper
+        for (int e = graph.begin(i); e < graph.end(i); e++) {
+            int k = graph.target(e);
+            int linkCost = graph.cost(e);
+            int neighbourRow = k * n;
+            for (int j = 0; j < n; j++) {
+                int c = cost[neighbourRow + j];
+                if (c == -1 || j == i) {
+                    // cant reach from this vector
+                    continue;
+                }
+                c += linkCost;
+                relaxed++;
+                if (c > bound) {
+                    continue;
+                }
+                int current = nextCost[row + j];
+                if (current == -1 || c < current) {
+                    nextCost[row + j] = c;
+                    nextThrough[row + j] = k;
+                }
+            }
+        }
+        relaxations[w] += relaxed;
+        return countUpdates(row, w) > 0;
+    }
+
+    /**
+     * To update the vector of router i from what its neighbours advertised at
+     * the end of the previous round, by the RIP rule and the update policy
+     *
+     * @param w slot of the worker, for the stats
+     * @return true if the vector changed or a route is timing out
+     */
+    private boolean updateRow(int i, int w) {
+        int n = numberOfNodes;
+        int row = i * n;
+        boolean aging = false;
+        // added to the worker's slot once, like in relaxRow
+        long relaxed = 0;
+        // first what the next hops say
+        for (int j = 0; j < n; j++) {
+            int hop = through[row + j];
+            int c = cost[row + j];
+            nextAge[row + j] = 0;
+            if (j == i || c == -1) {
+                nextCost[row + j] = c;
+                nextThrough[row + j] = hop;
+                continue;
+            }
+            int linkCost = graph.getCost(i, hop);
+            int advertised = linkCost == 0 ? -1 : advertised(hop, j, i);
+            if (advertised == -2) {
+                // not advertised (split horizon), so the route ages
+                int silent = age[row + j] + 1;
+                if (silent > ROUTE_TIMEOUT) {
+                    c = -1;
+                } else {
+                    nextAge[row + j] = (byte) silent;
+                    aging = true;
+                }
+            } else {
+                // link gone, or whatever the next hop says now
+                relaxed++;
+                c = advertised == -1 || linkCost == 0 ? -1 : advertised + linkCost;
+                if (c > bound) {
+                    c = -1;
+                }
+            }
+            nextCost[row + j] = c;
+            nextThrough[row + j] = c == -1 ? i : hop;
+        }
+        // then anything better from the others
+        for (int e = graph.begin(i); e < graph.end(i); e++) {
+            int k = graph.target(e);
+            int linkCost = graph.cost(e);
+            for (int j = 0; j < n; j++) {
+                if (j == i || through[row + j] == k) {
+                    continue;
+                }
+                int advertised = advertised(k, j, i);
+                if (advertised < 0) {
+                    continue;
+                }
+                relaxed++;
+                int c = advertised + linkCost;
+                if (c > bound) {
+                    continue;
+                }
+                int current = nextCost[row + j];
+                if (current == -1 || c < current || (c == current && k < nextThrough[row + j])) {
+                    nextCost[row + j] = c;
+                    nextThrough[row + j] = k;
+                    nextAge[row + j] = 0;
+                }
+            }
+        }
+        relaxations[w] += relaxed;
+        rowChanged[i] = countUpdates(row, w) > 0;
+        rowAging[i] = aging;
+        return rowChanged[i] || aging;
+    }
+
+    /**
+     * @return what router k advertises to its neighbour i for router j at the
+     *         end of the previous round: its cost, -1 if unreachable, or -2 if
+     *         it leaves it out
+     */
+    private int advertised(int k, int j, int i) {
+        int index = k * numberOfNodes + j;
+        if (through[index] == i && j != k) {
+            if (policy == SPLIT_HORIZON) {
+                return -2;
+            }
+            if (policy == POISONED_REVERSE) {
+                return -1;
+            }
+        }
+        return cost[index];
+    }
+
+    /**
+     * @return number of entries of the row that changed this round, which is
+     *         added to the stats
+     */
+    private int countUpdates(int row, int w) {
+        int count = 0;
+        for (int j = 0; j < numberOfNodes; j++) {
+            if (nextCost[row + j] != cost[row + j] || nextThrough[row + j] != through[row + j]) {
+                count++;
+            }
+        }
+        updates[w] += count;
+        return count;
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return number of rounds the last run took to converge, counting the
+     *         final round in which nothing changed (passes of the worklist)
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return number of entries that changed over all rounds of the last run
+     */
+    public long getUpdates() {
+        long sum = 0;
+        for (long count : updates) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /**
+     * @return number of neighbour offers weighed in the last run
+     */
+    public long getRelaxations() {
+        long sum = 0;
+        for (long count : relaxations) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /**
+     * @return rounds, vector updates, relaxations and wall time of the last run
+     */
+    public String getStats() {
+        return rounds + (worklist != null && !warm ? " passes, " : " rounds, ") + getUpdates() + " vector updates, "
+                + getRelaxations() + " relaxations, " + String.format("%.3f", nanos / 1e6) + " ms";
+    }
+
+    /**
+     * @return cost from router i to router j, -1 if it cannot be reached
+     */
+    public int getCost(int i, int j) {
+        return cost[i * numberOfNodes + j];
+    }
+
+    /**
+     * @return neighbour router i goes through to reach router j
+     */
+    public int getThrough(int i, int j) {
+        return through[i * numberOfNodes + j];
+    }
+
+    /**
+     * @return converged costs, entry (i, j) at index i * n + j
+     */
+    public int[] getCosts() {
+        return cost;
+    }
+
+    /**
+     * @return converged next hops, entry (i, j) at index i * n + j
+     */
+    public int[] getThroughs() {
+        return through;
+    }
+}
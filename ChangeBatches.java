@@ -0,0 +1,127 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: ChangeBatches.java
+ * description: To group the changes file into batches that are applied together and routed once.
+ */
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ChangeBatches splits the changes file into epochs of consecutive changes,
+ * each applied to the network as a whole before the routes are computed and
+ * printed once. An epoch ends after a number of changes, or when a change's
+ * <time> is a whole window past the first change of the epoch, whichever
+ * comes first. With one change per epoch the output is the same as applying
+ * every change on its own.
+ *
+ * The changes of an epoch are coalesced against the network as it is before
+ * them: a later change to a link overrides an earlier one (in either
+ * direction), and a link that ends the epoch at the cost it started with is
+ * left out, so routing only sees the links that really changed.
+ */
+class ChangeBatches {
+    private final LinkFile changes;
+    // first change of each epoch, and the end of the last one
+    private int[] start;
+    private int count;
+
+    /**
+     * @param changes changes, already shifted to 1-based routers
+     * @param size    most changes in an epoch
+     * @param window  length of an epoch in <time> units, 0 to ignore the times
+     * @throws IllegalArgumentException if there is a window but a change has no
+     *                                  time
+     */
+    public ChangeBatches(LinkFile changes, int size, int window) {
+        this.changes = changes;
+        if (window > 0 && !changes.hasTimes()) {
+            throw new IllegalArgumentException("--batch-window needs a <time> column on every line of the changes file");
+        }
+        start = new int[16];
+        int first = 0;
+        for (int c = 0; c < changes.getCount(); c++) {
+            if (c == first) {
+                addEpoch(c);
+            } else if (c - first >= size || (window > 0 && changes.getTime(c) - changes.getTime(first) >= window)) {
+                first = c;
+                addEpoch(c);
+            }
+        }
+        start[count] = changes.getCount();
+    }
+
+    private void addEpoch(int first) {
+        if (count + 1 >= start.length) {
+            start = Arrays.copyOf(start, 2 * start.length);
+        }
+        start[count++] = first;
+    }
+
+    /**
+     * @return number of epochs
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of lines of the changes file in epoch e
+     */
+    public int getSize(int e) {
+        return start[e + 1] - start[e];
+    }
+
+    /**
+     * @return index in the changes file of the first change of epoch e
+     */
+    public int getFirst(int e) {
+        return start[e];
+    }
+
+    /**
+     * To coalesce the changes of an epoch
+     *
+     * @param e     epoch
+     * @param graph network before the epoch
+     * @return the links that change, each once with its last cost (-999 to
+     *         remove it), in the order they first changed
+     */
+    public LinkFile coalesce(int e, CsrGraph graph) {
+        int size = getSize(e);
+        int[] src = new int[size];
+        int[] dest = new int[size];
+        int[] cost = new int[size];
+        // coalesced change of each link, by its ends in increasing order
+        Map<Long, Integer> links = new HashMap<Long, Integer>();
+        int coalesced = 0;
+        for (int c = start[e]; c < start[e + 1]; c++) {
+            int u = changes.getSrc(c);
+            int v = changes.getDest(c);
+            Long link = ((long) Math.min(u, v) << 32) | Math.max(u, v);
+            Integer at = links.get(link);
+            if (at == null) {
+                at = coalesced++;
+                links.put(link, at);
+                src[at] = u;
+                dest[at] = v;
+            }
+            cost[at] = changes.getCost(c);
+        }
+        // drop the links that end where they started
+        int kept = 0;
+        for (int i = 0; i < coalesced; i++) {
+            int newCost = cost[i] == -999 ? 0 : cost[i];
+            if (newCost != graph.getCost(src[i] - 1, dest[i] - 1)) {
+                src[kept] = src[i];
+                dest[kept] = dest[i];
+                cost[kept] = cost[i];
+                kept++;
+            }
+        }
+        Metrics.count(Metrics.CHANGES, size);
+        Metrics.count(Metrics.LINKS_CHANGED, kept);
+        return new LinkFile(kept, src, dest, cost);
+    }
+}
@@ -0,0 +1,785 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: ContractionHierarchy.java
+ * description: To answer least-cost path queries from a contraction hierarchy that is re-customized after link changes.
+ */
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A ContractionHierarchy answers least-cost queries between two routers
+ * without searching the network, after preprocessing it. It is customizable
+ * (CCH): the preprocessing is split into a part that only depends on which
+ * links there are and a cheap part that puts the costs in, so a change to a
+ * cost only redoes the second part, and only where the change reaches.
+ *
+ * <pre>
+ * order       nodes are ordered by nested dissection (separators last) and
+ *             contracted in that order, every contracted node joining its
+ *             remaining neighbours to each other; each node keeps the arcs
+ *             up to its neighbours when it was contracted, the ones that
+ *             were not links being shortcuts
+ * customize   arc (u, v) costs the least of its link (if any) and every
+ *             u - x - v through a node x contracted before both, done in
+ *             contraction order, remembering the x (the middle) it came from
+ * query       s and t each search up their arcs, which only lead to the
+ *             nodes above them in the elimination tree (the first node each
+ *             node's arcs reach); the cost is the least sum where the two
+ *             meet, and the path is unpacked from the arcs through the middles
+ * </pre>
+ *
+ * The unpacked path is a least-cost path, but not always the one
+ * DijkstraEngine's tree holds, which is reached through the lowest-numbered
+ * neighbour u with d(s, u) + cost(u, v) == d(s, v) at every node. So query
+ * walks back from t that way, the hierarchy acting as an oracle for the d(s, u)
+ * the unpacked path does not give. The hop lists are then the same as
+ * lsrouter's. distance answers the cost alone, without the walk, which is
+ * what the hierarchy is fastest at.
+ *
+ * A change to a link the hierarchy has an arc for (any change but a new link
+ * between nodes it never joined) re-customizes the arcs that depend on it;
+ * a new link rebuilds it. Nodes are 0-based here, like the graph.
+ */
+class ContractionHierarchy implements ShortestPath {
+    // cost of an arc without a path, or of a node that cannot be reached
+    public static final int INFINITY = DijkstraEngine.INFINITY;
+
+    private final CsrGraph graph;
+    private final int numberOfNodes;
+    // contraction order and each node's place in it
+    private int[] order;
+    private int[] rank;
+    // the first node above each node in the elimination tree, -1 at a root
+    private int[] parent;
+    // arcs up from node x are upBegin[x] to upBegin[x + 1] - 1, sorted by rank
+    private int[] upBegin;
+    private int[] tail;
+    private int[] head;
+    // cost of the link an arc stands for, INFINITY if it is a shortcut
+    private int[] linkCost;
+    // customized cost of each arc, and the node it goes through (-1 if none)
+    private int[] arcCost;
+    private int[] middle;
+    // arcs up to node v from below are downArc[downBegin[v]] and on, sorted
+    // by the rank of their tails
+    private int[] downBegin;
+    private int[] downArc;
+
+    // per query, each array only valid where its stamp is the query's
+    private int query;
+    private final int[] forwardCost, forwardArc, forwardStamp;
+    private final int[] backwardCost, backwardArc, backwardStamp;
+    private final int[] oracleCost;
+    private final int[] lowerBound, boundStamp;
+    private final int[] knownCost, knownStamp;
+    // arcs of a triangle, by the third node, while re-customizing
+    private final int[] triangleArc, triangleStamp;
+    // arcs waiting to be re-customized, keyed by the rank of their tails
+    private IndexedMinHeap pending;
+    private int[] path;
+    private int pathLength;
+    private int[] stack;
+    private int source, target, cost;
+
+    // stats
+    private long buildNanos, customizeNanos, recustomizeNanos;
+    private int rebuilds, recustomizations;
+    private long arcsRecustomized, queries, oracleCalls;
+
+    /**
+     * To order, contract and customize the network
+     *
+     * @param graph network topology, whose changes must be given to
+     *              applyChange after they are made
+     */
+    public ContractionHierarchy(CsrGraph graph) {
+        this.graph = graph;
+        int n = graph.getNumberOfNodes();
+        numberOfNodes = n;
+        forwardCost = new int[n];
+        forwardArc = new int[n];
+        forwardStamp = new int[n];
+        backwardCost = new int[n];
+        backwardArc = new int[n];
+        backwardStamp = new int[n];
+        oracleCost = new int[n];
+        lowerBound = new int[n];
+        boundStamp = new int[n];
+        knownCost = new int[n];
+        knownStamp = new int[n];
+        triangleArc = new int[n];
+        triangleStamp = new int[n];
+        path = new int[Math.max(1, n)];
+        stack = new int[16];
+        build();
+    }
+
+    /**
+     * To order and contract the network as it is now, then customize it
+     */
+    private void build() {
+        long begin = System.nanoTime();
+        dissect();
+        contract();
+        pending = new IndexedMinHeap(head.length);
+        buildNanos += System.nanoTime() - begin;
+        begin = System.nanoTime();
+        customize();
+        customizeNanos += System.nanoTime() - begin;
+    }
+
+    /**
+     * To order the nodes by nested dissection: a part of the network is split
+     * by the middle level of a breadth-first search from one of its far ends,
+     * both sides are ordered the same way, and the level (the separator) comes
+     * after them. Separators end up high in the order and the elimination tree
+     * stays shallow, which keeps the queries and the fill-in small.
+     */
+    private void dissect() {
+        int n = numberOfNodes;
+        order = new int[n];
+        int[] part = new int[n];
+        int[] level = new int[n];
+        int[] queue = new int[n];
+        int parts = 0;
+        // parts still to order, each with the first place it gets in the order
+        ArrayDeque<int[]> todo = new ArrayDeque<int[]>();
+        ArrayDeque<Integer> firstPlace = new ArrayDeque<Integer>();
+        int[] all = new int[n];
+        for (int v = 0; v < n; v++) {
+            all[v] = v;
+        }
+        todo.push(all);
+        firstPlace.push(0);
+        while (!todo.isEmpty()) {
+            int[] nodes = todo.pop();
+            int first = firstPlace.pop();
+            int size = nodes.length;
+            if (size <= 2) {
+                System.arraycopy(nodes, 0, order, first, size);
+                continue;
+            }
+            int id = ++parts;
+            for (int v : nodes) {
+                part[v] = id;
+            }
+            // from the node at the end of a search from the first node
+            int reached = search(nodes[0], part, id, -id, level, queue);
+            if (reached < size) {
+                // not connected, so each piece is ordered on its own
+                int[] piece = Arrays.copyOf(queue, reached);
+                int[] rest = new int[size - reached];
+                int r = 0;
+                for (int v : nodes) {
+                    if (part[v] == id) {
+                        rest[r++] = v;
+                    }
+                }
+                todo.push(piece);
+                firstPlace.push(first);
+                todo.push(rest);
+                firstPlace.push(first + reached);
+                continue;
+            }
+            search(queue[size - 1], part, -id, id, level, queue);
+            int levels = level[queue[size - 1]] + 1;
+            int[] count = new int[levels];
+            for (int v : nodes) {
+                count[level[v]]++;
+            }
+            // the smallest level with a quarter of the part on either side, or
+            // the one in the middle if there is none
+            int separator = -1;
+            int below = 0;
+            int middle = 0;
+            for (int l = 0; l < levels; l++) {
+                int above = size - below - count[l];
+                if (4 * below >= size && 4 * above >= size && (separator == -1 || count[l] < count[separator])) {
+                    separator = l;
+                }
+                if (2 * below < size) {
+                    middle = l;
+                }
+                below += count[l];
+            }
+            if (separator == -1) {
+                separator = middle;
+            }
+            int[] low = new int[size];
+            int[] high = new int[size];
+            int lows = 0;
+            int highs = 0;
+            int place = first + size;
+            for (int v : nodes) {
+                if (level[v] < separator) {
+                    low[lows++] = v;
+                } else if (level[v] > separator) {
+                    high[highs++] = v;
+                } else {
+                    // contracted last, in order of node number from the end
+                    order[--place] = v;
+                }
+            }
+            if (lows + highs == 0) {
+                // a part that is one level can not be split further
+                continue;
+            }
+            todo.push(Arrays.copyOf(low, lows));
+            firstPlace.push(first);
+            todo.push(Arrays.copyOf(high, highs));
+            firstPlace.push(first + lows);
+        }
+        rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[order[r]] = r;
+        }
+    }
+
+    /**
+     * Breadth-first search inside one part
+     *
+     * @param from  node to start from
+     * @param part  part of every node, moved to another as it is reached
+     * @param id    part to stay in
+     * @param seen  part to move the nodes reached to
+     * @param level filled with the level of every node reached
+     * @param queue filled with the nodes reached, in the order they were
+     * @return number of nodes reached
+     */
+    private int search(int from, int[] part, int id, int seen, int[] level, int[] queue) {
+        int head = 0;
+        int size = 0;
+        queue[size++] = from;
+        level[from] = 0;
+        part[from] = seen;
+        while (head < size) {
+            int u = queue[head++];
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                int v = graph.target(e);
+                if (part[v] == id) {
+                    part[v] = seen;
+                    level[v] = level[u] + 1;
+                    queue[size++] = v;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * To contract the nodes in order, each joining its neighbours not yet
+     * contracted to each other (the fill-in), and keep the arcs up from each
+     * node to those neighbours
+     */
+    private void contract() {
+        int n = numberOfNodes;
+        int[][] adjacent = new int[n][];
+        int[] degree = new int[n];
+        for (int u = 0; u < n; u++) {
+            adjacent[u] = new int[Math.max(4, graph.getDegree(u))];
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                adjacent[u][degree[u]++] = graph.target(e);
+            }
+        }
+        int[][] up = new int[n][];
+        int[] marked = new int[n];
+        Arrays.fill(marked, -1);
+        for (int r = 0; r < n; r++) {
+            int x = order[r];
+            int[] neighbours = Arrays.copyOf(adjacent[x], degree[x]);
+            up[x] = neighbours;
+            adjacent[x] = null;
+            // x leaves its neighbours, and they are joined to each other
+            for (int u : neighbours) {
+                int[] a = adjacent[u];
+                for (int i = 0; i < degree[u]; i++) {
+                    if (a[i] == x) {
+                        a[i] = a[--degree[u]];
+                        break;
+                    }
+                }
+                for (int i = 0; i < degree[u]; i++) {
+                    marked[a[i]] = u;
+                }
+                for (int v : neighbours) {
+                    if (v != u && marked[v] != u) {
+                        if (degree[u] == a.length) {
+                            a = adjacent[u] = Arrays.copyOf(a, 2 * a.length);
+                        }
+                        a[degree[u]++] = v;
+                    }
+                }
+            }
+        }
+        // arcs up, sorted by rank
+        upBegin = new int[n + 1];
+        for (int x = 0; x < n; x++) {
+            upBegin[x + 1] = upBegin[x] + up[x].length;
+        }
+        int arcs = upBegin[n];
+        tail = new int[arcs];
+        head = new int[arcs];
+        linkCost = new int[arcs];
+        arcCost = new int[arcs];
+        middle = new int[arcs];
+        parent = new int[n];
+        int[] downCount = new int[n + 1];
+        for (int x = 0; x < n; x++) {
+            long[] byRank = new long[up[x].length];
+            for (int i = 0; i < byRank.length; i++) {
+                byRank[i] = ((long) rank[up[x][i]] << 32) | up[x][i];
+            }
+            Arrays.sort(byRank);
+            for (int i = 0; i < byRank.length; i++) {
+                int a = upBegin[x] + i;
+                tail[a] = x;
+                head[a] = (int) byRank[i];
+                downCount[head[a] + 1]++;
+            }
+            parent[x] = byRank.length == 0 ? -1 : (int) byRank[0];
+        }
+        // arcs down, in contraction order of their tails
+        downBegin = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            downBegin[v + 1] = downBegin[v] + downCount[v + 1];
+        }
+        downArc = new int[arcs];
+        int[] fill = Arrays.copyOf(downBegin, n);
+        for (int r = 0; r < n; r++) {
+            int x = order[r];
+            for (int a = upBegin[x]; a < upBegin[x + 1]; a++) {
+                downArc[fill[head[a]]++] = a;
+            }
+        }
+    }
+
+    /**
+     * To give every arc its cost, the triangles of each node relaxed in
+     * contraction order so the arcs below are done first
+     */
+    private void customize() {
+        for (int a = 0; a < head.length; a++) {
+            int c = graph.getCost(tail[a], head[a]);
+            linkCost[a] = c == 0 ? INFINITY : c;
+            arcCost[a] = linkCost[a];
+            middle[a] = -1;
+        }
+        for (int r = 0; r < numberOfNodes; r++) {
+            int x = order[r];
+            for (int i = upBegin[x]; i < upBegin[x + 1]; i++) {
+                if (arcCost[i] == INFINITY) {
+                    continue;
+                }
+                for (int j = i + 1; j < upBegin[x + 1]; j++) {
+                    long c = (long) arcCost[i] + arcCost[j];
+                    int b = findArc(head[i], head[j]);
+                    if (c < arcCost[b]) {
+                        arcCost[b] = (int) c;
+                        middle[b] = x;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return arc from u up to v, u ranking below v, -1 if there is none
+     */
+    private int findArc(int u, int v) {
+        int low = upBegin[u];
+        int high = upBegin[u + 1] - 1;
+        int key = rank[v];
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int r = rank[head[mid]];
+            if (r < key) {
+                low = mid + 1;
+            } else if (r > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * To take a change to the cost of a link, already made to the graph
+     *
+     * @param u    one end of the link (0-based)
+     * @param v    other end of the link (0-based)
+     * @param cost new cost, 0 or less removing the link
+     */
+    public void applyChange(int u, int v, int cost) {
+        if (u == v) {
+            return;
+        }
+        int c = cost <= 0 ? INFINITY : cost;
+        int a = rank[u] < rank[v] ? findArc(u, v) : findArc(v, u);
+        if (a == -1) {
+            if (c != INFINITY) {
+                // nodes never joined, so the order no longer fits the links
+                rebuilds++;
+                build();
+            }
+            return;
+        }
+        if (linkCost[a] == c) {
+            return;
+        }
+        long begin = System.nanoTime();
+        linkCost[a] = c;
+        recustomize(a);
+        recustomizations++;
+        recustomizeNanos += System.nanoTime() - begin;
+    }
+
+    /**
+     * To recompute an arc and every arc whose cost depends on it, arcs with
+     * lower tails first as the ones above depend on them
+     */
+    private void recustomize(int changed) {
+        pending.clear();
+        pending.insertOrDecrease(changed, rank[tail[changed]]);
+        while (!pending.isEmpty()) {
+            int a = pending.poll();
+            arcsRecustomized++;
+            int u = tail[a];
+            int v = head[a];
+            // least of the link and the triangles under the arc, the first in
+            // contraction order on ties as customize has it
+            int best = linkCost[a];
+            int through = -1;
+            for (int d = downBegin[u]; d < downBegin[u + 1]; d++) {
+                triangleArc[tail[downArc[d]]] = downArc[d];
+                triangleStamp[tail[downArc[d]]] = a + 1;
+            }
+            for (int d = downBegin[v]; d < downBegin[v + 1]; d++) {
+                int x = tail[downArc[d]];
+                if (triangleStamp[x] != a + 1) {
+                    continue;
+                }
+                long c = (long) arcCost[triangleArc[x]] + arcCost[downArc[d]];
+                if (c < best) {
+                    best = (int) c;
+                    through = x;
+                }
+            }
+            // triangleStamp keeps arc numbers, so clear it for the next arc
+            for (int d = downBegin[u]; d < downBegin[u + 1]; d++) {
+                triangleStamp[tail[downArc[d]]] = 0;
+            }
+            middle[a] = through;
+            if (best == arcCost[a]) {
+                continue;
+            }
+            arcCost[a] = best;
+            // arcs between v and the other nodes above u go through u
+            for (int b = upBegin[u]; b < upBegin[u + 1]; b++) {
+                int y = head[b];
+                if (y != v) {
+                    int affected = rank[v] < rank[y] ? findArc(v, y) : findArc(y, v);
+                    pending.insertOrDecrease(affected, rank[tail[affected]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the cost of the least-cost path from source to target and the path
+     * DijkstraEngine's tree from source would give.
+     *
+     * @param source source node (0-based)
+     * @param target target node (0-based)
+     * @return cost of the path, INFINITY if target cannot be reached
+     */
+    public int run(int source, int target) {
+        int meet = meet(source, target);
+        pathLength = 0;
+        if (source == target) {
+            path[pathLength++] = source;
+        } else if (meet != -1) {
+            unpack(meet);
+            walkPath();
+        }
+        return cost;
+    }
+
+    /**
+     * Finds the cost of the least-cost path from source to target only, which
+     * is two searches up the elimination tree and no more.
+     *
+     * @param source source node (0-based)
+     * @param target target node (0-based)
+     * @return cost of the path, INFINITY if target cannot be reached
+     */
+    public int distance(int source, int target) {
+        meet(source, target);
+        // the path is left over from another query
+        pathLength = 0;
+        return cost;
+    }
+
+    /**
+     * To search up from source and target and set the cost
+     *
+     * @return node the least-cost path is highest at, -1 if there is no path
+     *         or source is target
+     */
+    private int meet(int source, int target) {
+        queries++;
+        query++;
+        this.source = source;
+        this.target = target;
+        cost = INFINITY;
+        if (source == target) {
+            cost = 0;
+            return -1;
+        }
+        searchUp(source, forwardCost, forwardArc, forwardStamp);
+        searchUp(target, backwardCost, backwardArc, backwardStamp);
+        // least sum where the two searches meet, above both in the tree
+        int meet = -1;
+        long best = INFINITY;
+        for (int x = source; x != -1; x = parent[x]) {
+            if (backwardStamp[x] == query && forwardCost[x] != INFINITY && backwardCost[x] != INFINITY
+                    && (long) forwardCost[x] + backwardCost[x] < best) {
+                best = (long) forwardCost[x] + backwardCost[x];
+                meet = x;
+            }
+        }
+        if (meet != -1) {
+            cost = (int) best;
+        }
+        return meet;
+    }
+
+    /**
+     * To search up from a node, which only reaches the nodes above it in the
+     * elimination tree, so they are relaxed in that order without a heap
+     */
+    private void searchUp(int from, int[] c, int[] arc, int[] stamp) {
+        for (int x = from; x != -1; x = parent[x]) {
+            c[x] = INFINITY;
+            arc[x] = -1;
+            stamp[x] = query;
+        }
+        c[from] = 0;
+        for (int x = from; x != -1; x = parent[x]) {
+            if (c[x] == INFINITY) {
+                continue;
+            }
+            for (int a = upBegin[x]; a < upBegin[x + 1]; a++) {
+                long through = (long) c[x] + arcCost[a];
+                if (through < c[head[a]]) {
+                    c[head[a]] = (int) through;
+                    arc[head[a]] = a;
+                }
+            }
+        }
+    }
+
+    /**
+     * To unpack the least-cost path through meet into links, and remember the
+     * cost from the source of every node on it
+     */
+    private void unpack(int meet) {
+        // arcs from the source up to meet, found from meet down so reversed
+        int count = 0;
+        for (int x = meet; x != source; x = tail[forwardArc[x]]) {
+            count = push(count, forwardArc[x]);
+        }
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swap = stack[i];
+            stack[i] = stack[j];
+            stack[j] = swap;
+        }
+        // then from meet down to the target, already in path order
+        for (int x = meet; x != target; x = tail[backwardArc[x]]) {
+            count = push(count, backwardArc[x]);
+        }
+        int[] todo = new int[Math.max(16, 2 * count)];
+        int top = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            todo = pushArc(todo, top++, stack[i]);
+        }
+        // take the arcs in path order, splitting shortcuts at their middles
+        int at = source;
+        int atCost = 0;
+        known(at, atCost);
+        while (top > 0) {
+            int a = todo[--top];
+            int other = tail[a] == at ? head[a] : tail[a];
+            if (middle[a] != -1) {
+                // at - middle - other, the middle being below both
+                int m = middle[a];
+                todo = pushArc(todo, top++, findArc(m, other));
+                todo = pushArc(todo, top++, findArc(m, at));
+                continue;
+            }
+            at = other;
+            atCost += linkCost[a];
+            known(at, atCost);
+        }
+    }
+
+    private int push(int count, int arc) {
+        if (count == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * count);
+        }
+        stack[count] = arc;
+        return count + 1;
+    }
+
+    private static int[] pushArc(int[] todo, int top, int arc) {
+        if (top == todo.length) {
+            todo = Arrays.copyOf(todo, 2 * top);
+        }
+        todo[top] = arc;
+        return todo;
+    }
+
+    private void known(int v, int c) {
+        knownCost[v] = c;
+        knownStamp[v] = query;
+    }
+
+    /**
+     * To tell whether the source reaches v for no more than need, by searching
+     * up from v to meet the source's search when the cost is not known yet.
+     * Nothing up from v dearer than need can help, so the search skips it and
+     * stops at the first meeting within need; a node it fails for is at least
+     * need + 1 from the source for the rest of the query.
+     */
+    private boolean reachesWithin(int v, int need) {
+        if (knownStamp[v] == query) {
+            return knownCost[v] <= need;
+        }
+        if (boundStamp[v] == query && need < lowerBound[v]) {
+            return false;
+        }
+        oracleCalls++;
+        for (int x = v; x != -1; x = parent[x]) {
+            oracleCost[x] = INFINITY;
+        }
+        oracleCost[v] = 0;
+        for (int x = v; x != -1; x = parent[x]) {
+            int c = oracleCost[x];
+            if (c > need) {
+                continue;
+            }
+            if (forwardStamp[x] == query && forwardCost[x] != INFINITY && (long) forwardCost[x] + c <= need) {
+                known(v, forwardCost[x] + c);
+                return true;
+            }
+            for (int a = upBegin[x]; a < upBegin[x + 1]; a++) {
+                long through = (long) c + arcCost[a];
+                if (through < oracleCost[head[a]]) {
+                    oracleCost[head[a]] = (int) through;
+                }
+            }
+        }
+        lowerBound[v] = need + 1;
+        boundStamp[v] = query;
+        return false;
+    }
+
+    /**
+     * To walk back from the target through the lowest-numbered predecessor of
+     * each node, the way DijkstraEngine breaks ties
+     */
+    private void walkPath() {
+        int v = target;
+        int dv = cost;
+        path[pathLength++] = v;
+        while (v != source) {
+            int pred = -1;
+            // neighbours are sorted, so the first that fits is the lowest;
+            // none is nearer than need, so within need is exactly need
+            for (int e = graph.begin(v); e < graph.end(v) && pred == -1; e++) {
+                int need = dv - graph.cost(e);
+                if (need >= 0 && reachesWithin(graph.target(e), need)) {
+                    pred = graph.target(e);
+                    dv = need;
+                }
+            }
+            if (pred == -1) {
+                throw new IllegalStateException("no predecessor of " + v + " on a least-cost path");
+            }
+            v = pred;
+            path[pathLength++] = v;
+        }
+        // source first
+        for (int i = 0, j = pathLength - 1; i < j; i++, j--) {
+            int swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return cost of the last path, INFINITY if there was none
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public boolean isReachable() {
+        return cost != INFINITY;
+    }
+
+    /**
+     * @return number of nodes on the path, source and target included, 0 if
+     *         there is none
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * @param i position on the path, 0 being the source
+     * @return node at that position
+     */
+    public int getPathNode(int i) {
+        return path[i];
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return number of arcs, links and shortcuts
+     */
+    public int getNumberOfArcs() {
+        return head.length;
+    }
+
+    /**
+     * @return arcs, preprocessing and customization times, and what the queries
+     *         and changes since took
+     */
+    public String getStats() {
+        int shortcuts = 0;
+        for (int a = 0; a < head.length; a++) {
+            if (linkCost[a] == INFINITY) {
+                shortcuts++;
+            }
+        }
+        return "contraction hierarchy: " + head.length + " arcs (" + shortcuts + " shortcuts), contracted in "
+                + String.format("%.3f", buildNanos / 1e6) + " ms and customized in "
+                + String.format("%.3f", customizeNanos / 1e6) + " ms, " + rebuilds + " rebuilds, "
+                + recustomizations + " changes re-customizing " + arcsRecustomized + " arcs in "
+                + String.format("%.3f", recustomizeNanos / 1e6) + " ms, " + queries + " queries, "
+                + oracleCalls + " oracle calls";
+    }
+}
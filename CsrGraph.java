@@ -0,0 +1,322 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: CsrGraph.java
+ * description: To hold the network topology as a compressed sparse row graph.
+ */
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A CsrGraph is a network topology in compressed sparse row form. The
+ * neighbours of node u are targets[begin(u)] to targets[end(u) - 1], sorted by
+ * node number, and costs[] holds the link cost at the same index. Nodes are
+ * 0-based like the adjacency matrix, and every link is stored in both
+ * directions because we are assuming no directed graphs.
+ *
+ * Each row may have spare room at its end so links can be added by a change
+ * without rebuilding the arrays. When a row runs out of room the arrays are
+ * rebuilt with that row's room doubled.
+ */
+class CsrGraph {
+    private final int numberOfNodes;
+    // row u starts at offsets[u] and has room up to offsets[u + 1]
+    private int[] offsets;
+    // number of links actually in row u
+    private final int[] degree;
+    private int[] targets;
+    private int[] costs;
+    private int numberOfLinks;
+
+    private CsrGraph(int numberOfNodes, int[] offsets, int[] degree, int[] targets, int[] costs) {
+        this.numberOfNodes = numberOfNodes;
+        this.offsets = offsets;
+        this.degree = degree;
+        this.targets = targets;
+        this.costs = costs;
+        for (int u = 0; u < numberOfNodes; u++) {
+            numberOfLinks += degree[u];
+        }
+        numberOfLinks /= 2;
+    }
+
+    /**
+     * To get the graph of the network given by proprietary list of Links. Like
+     * the adjacency matrix, a later link between the same two routers replaces
+     * an earlier one. Links from a router to itself are left out.
+     *
+     * @param l      list of Links which represent a network
+     * @param offset minimum node number (see AlgorithmUtils.getOffset)
+     * @return graph of the network
+     */
+    public static CsrGraph fromTopology(List<Link> l, int offset) {
+        int n = AlgorithmUtils.getNumberOfNodes(l);
+        int[] src = new int[l.size()];
+        int[] dest = new int[l.size()];
+        int[] cost = new int[l.size()];
+        for (int i = 0; i < l.size(); i++) {
+            Link link = l.get(i);
+            src[i] = link.getSrc() - offset;
+            dest[i] = link.getDest() - offset;
+            cost[i] = link.getCost();
+        }
+        return fromLinks(n, src, dest, cost, l.size());
+    }
+
+    /**
+     * To get the graph of the network given by an adjacency matrix
+     *
+     * @param a adjacency matrix, 0 meaning no link
+     * @return graph of the network
+     */
+    public static CsrGraph fromAdjacencyMatrix(int[][] a) {
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = i + 1; j < a.length; j++) {
+                if (a[i][j] != 0) {
+                    count++;
+                }
+            }
+        }
+        int[] src = new int[count];
+        int[] dest = new int[count];
+        int[] cost = new int[count];
+        count = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = i + 1; j < a.length; j++) {
+                if (a[i][j] != 0) {
+                    src[count] = i;
+                    dest[count] = j;
+                    cost[count++] = a[i][j];
+                }
+            }
+        }
+        return fromLinks(a.length, src, dest, cost, count);
+    }
+
+    /**
+     * To build the graph from rows that are already sorted, as written by
+     * Snapshot. The arrays are used as they are.
+     *
+     * @param numberOfNodes number of routers
+     * @param offsets       row u is targets[offsets[u]] to targets[offsets[u + 1] - 1]
+     * @param targets       neighbours of every router, sorted within a row
+     * @param costs         cost of the link to each neighbour
+     * @return graph of the network
+     */
+    public static CsrGraph fromRows(int numberOfNodes, int[] offsets, int[] targets, int[] costs) {
+        int[] degree = new int[numberOfNodes];
+        for (int u = 0; u < numberOfNodes; u++) {
+            degree[u] = offsets[u + 1] - offsets[u];
+        }
+        return new CsrGraph(numberOfNodes, offsets, degree, targets, costs);
+    }
+
+    /**
+     * To build the graph from parallel arrays of 0-based links
+     *
+     * @param numberOfNodes number of routers
+     * @param src           link sources
+     * @param dest          link destinations
+     * @param cost          link costs (0 or less meaning no link)
+     * @param count         number of links in the arrays
+     * @return graph of the network
+     */
+    public static CsrGraph fromLinks(int numberOfNodes, int[] src, int[] dest, int[] cost, int count) {
+        int[] offsets = new int[numberOfNodes + 1];
+        for (int i = 0; i < count; i++) {
+            if (src[i] != dest[i] && cost[i] > 0) {
+                offsets[src[i] + 1]++;
+                offsets[dest[i] + 1]++;
+            }
+        }
+        for (int u = 0; u < numberOfNodes; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        // each entry is (target << 32 | link index) so sorting a row orders it by
+        // target and keeps the links to one target in file order
+        long[] entries = new long[offsets[numberOfNodes]];
+        int[] fill = Arrays.copyOf(offsets, numberOfNodes);
+        for (int i = 0; i < count; i++) {
+            if (src[i] != dest[i] && cost[i] > 0) {
+                entries[fill[src[i]]++] = ((long) dest[i] << 32) | i;
+                entries[fill[dest[i]]++] = ((long) src[i] << 32) | i;
+            }
+        }
+        int[] degree = new int[numberOfNodes];
+        int[] targets = new int[entries.length];
+        int[] costs = new int[entries.length];
+        for (int u = 0; u < numberOfNodes; u++) {
+            Arrays.sort(entries, offsets[u], offsets[u + 1]);
+            int d = offsets[u];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int target = (int) (entries[e] >>> 32);
+                int link = (int) entries[e];
+                // a later link to the same target replaces the earlier one
+                if (d > offsets[u] && targets[d - 1] == target) {
+                    costs[d - 1] = cost[link];
+                } else {
+                    targets[d] = target;
+                    costs[d++] = cost[link];
+                }
+            }
+            degree[u] = d - offsets[u];
+        }
+        return new CsrGraph(numberOfNodes, offsets, degree, targets, costs);
+    }
+
+    /**
+     * @return a graph with the same links and arrays of its own, which changes
+     *         to this one do not reach
+     */
+    public CsrGraph copy() {
+        return new CsrGraph(numberOfNodes, offsets.clone(), degree.clone(), targets.clone(), costs.clone());
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    public int getNumberOfLinks() {
+        return numberOfLinks;
+    }
+
+    /**
+     * @param u node
+     * @return index of the first neighbour of u
+     */
+    public int begin(int u) {
+        return offsets[u];
+    }
+
+    /**
+     * @param u node
+     * @return index one past the last neighbour of u
+     */
+    public int end(int u) {
+        return offsets[u] + degree[u];
+    }
+
+    public int getDegree(int u) {
+        return degree[u];
+    }
+
+    /**
+     * @param e index between begin(u) and end(u)
+     * @return neighbour at that index
+     */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * @param e index between begin(u) and end(u)
+     * @return cost of the link at that index
+     */
+    public int cost(int e) {
+        return costs[e];
+    }
+
+    /**
+     * To get the cost of the link between two nodes
+     *
+     * @param u one end of the link
+     * @param v other end of the link
+     * @return cost of the link, or 0 if there is none (like the adjacency matrix)
+     */
+    public int getCost(int u, int v) {
+        int e = find(u, v);
+        return e < 0 ? 0 : costs[e];
+    }
+
+    /**
+     * To set the cost of the link between two nodes in both directions, adding
+     * the link if it is not there yet.
+     *
+     * @param u    one end of the link
+     * @param v    other end of the link
+     * @param cost new cost, 0 or less removing the link
+     */
+    public void setCost(int u, int v, int cost) {
+        if (u == v) {
+            return;
+        }
+        if (cost <= 0) {
+            if (removeArc(u, v)) {
+                removeArc(v, u);
+                numberOfLinks--;
+            }
+        } else {
+            boolean added = setArc(u, v, cost);
+            setArc(v, u, cost);
+            if (added) {
+                numberOfLinks++;
+            }
+        }
+    }
+
+    /**
+     * @return index of v in row u, or -(insertion point) - 1 if not there
+     */
+    private int find(int u, int v) {
+        return Arrays.binarySearch(targets, offsets[u], offsets[u] + degree[u], v);
+    }
+
+    /**
+     * @return true if the arc had to be added
+     */
+    private boolean setArc(int u, int v, int cost) {
+        int e = find(u, v);
+        if (e >= 0) {
+            costs[e] = cost;
+            return false;
+        }
+        if (offsets[u] + degree[u] == offsets[u + 1]) {
+            growRow(u);
+            e = find(u, v);
+        }
+        int at = -e - 1;
+        int last = offsets[u] + degree[u];
+        System.arraycopy(targets, at, targets, at + 1, last - at);
+        System.arraycopy(costs, at, costs, at + 1, last - at);
+        targets[at] = v;
+        costs[at] = cost;
+        degree[u]++;
+        return true;
+    }
+
+    /**
+     * @return true if there was an arc to remove
+     */
+    private boolean removeArc(int u, int v) {
+        int e = find(u, v);
+        if (e < 0) {
+            return false;
+        }
+        int last = offsets[u] + degree[u];
+        System.arraycopy(targets, e + 1, targets, e, last - e - 1);
+        System.arraycopy(costs, e + 1, costs, e, last - e - 1);
+        degree[u]--;
+        return true;
+    }
+
+    /**
+     * To rebuild the arrays with the room of row u doubled
+     */
+    private void growRow(int u) {
+        int extra = Math.max(4, offsets[u + 1] - offsets[u]);
+        int[] newOffsets = new int[numberOfNodes + 1];
+        for (int w = 0; w < numberOfNodes; w++) {
+            newOffsets[w + 1] = newOffsets[w] + (offsets[w + 1] - offsets[w]) + (w == u ? extra : 0);
+        }
+        int[] newTargets = new int[newOffsets[numberOfNodes]];
+        int[] newCosts = new int[newOffsets[numberOfNodes]];
+        for (int w = 0; w < numberOfNodes; w++) {
+            System.arraycopy(targets, offsets[w], newTargets, newOffsets[w], degree[w]);
+            System.arraycopy(costs, offsets[w], newCosts, newOffsets[w], degree[w]);
+        }
+        offsets = newOffsets;
+        targets = newTargets;
+        costs = newCosts;
+    }
+}
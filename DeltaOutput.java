@@ -0,0 +1,96 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: DeltaOutput.java
+ * description: To print each state after the first as only the forwarding entries and message paths that changed.
+ */
+
+/**
+ * A DeltaOutput prints the first state of the network in full, as the routers
+ * always have, and every later state as only what changed since the state
+ * before it:
+ *
+ * <pre>
+ * delta <state number, 1 for the state after the first changes>
+ * <router> <dest> <next hop> <cost>       one line per changed entry
+ * <message number> from <x> to <y>: hops ...; message: <message>
+ * (blank line)
+ * </pre>
+ *
+ * Entries come by router and then destination, and messages in the order of
+ * the messages file, numbered from 1. undelta expands the deltas back to the
+ * full output.
+ *
+ * It keeps its own copy of the last state's forwarding table, since the
+ * routers reuse theirs.
+ */
+class DeltaOutput {
+    private final ForwardingTable previous;
+    private final MessageRouter messageRouter;
+    private int states;
+    // for the stats
+    private long entries;
+    private long messages;
+
+    /**
+     * @param previous      empty table as large as the routers', to keep the
+     *                      last state in
+     * @param messageRouter routes the messages of every state
+     */
+    public DeltaOutput(ForwardingTable previous, MessageRouter messageRouter) {
+        this.previous = previous;
+        this.messageRouter = messageRouter;
+    }
+
+    /**
+     * To print one state of the network, in full if it is the first
+     *
+     * @param out   buffer to print to
+     * @param table forwarding table of this state
+     */
+    public void print(OutputBuffer out, ForwardingTable table, int offset) {
+        int n = table.getNumberOfNodes();
+        if (states++ == 0) {
+            table.print(out, offset);
+            messageRouter.print(out, table, offset);
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    previous.set(j, i, table.nextHop(j, i), table.cost(j, i));
+                }
+            }
+            return;
+        }
+        out.print("delta ");
+        out.print(states - 1);
+        out.print('\n');
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                int hop = table.nextHop(j, i);
+                int cost = table.cost(j, i);
+                if (hop == previous.nextHop(j, i) && cost == previous.cost(j, i)) {
+                    continue;
+                }
+                previous.set(j, i, hop, cost);
+                out.print((j + 1) - (1 - offset));
+                out.print(' ');
+                out.print((i + 1) - (1 - offset));
+                out.print(' ');
+                out.print(hop + 1 - (1 - offset));
+                out.print(' ');
+                out.print(cost);
+                out.print('\n');
+                entries++;
+            }
+        }
+        messages += messageRouter.printChanged(out, table, offset);
+        out.println();
+    }
+
+    /**
+     * @return entries and message paths printed in the deltas
+     */
+    public String getStats() {
+        return (states > 0 ? states - 1 : 0) + " deltas: " + entries + " changed entries, " + messages
+                + " changed message paths";
+    }
+}
@@ -0,0 +1,384 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: DeltaSteppingEngine.java
+ * description: To compute one router's least-cost tree by parallel delta-stepping.
+ */
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A DeltaSteppingEngine computes the least-cost tree from one source like
+ * DijkstraEngine, but relaxes many nodes at once on a ForkJoinPool, so a single
+ * source on a very large network uses every thread. Instead of settling one
+ * node at a time it keeps buckets of nodes whose cost is in [i * width, (i + 1)
+ * * width) and empties the lowest bucket in rounds: the light links (no more
+ * than width) of every node in it are relaxed in parallel, which may put nodes
+ * back into the same bucket, and once it stays empty the heavy links of every
+ * node it held are relaxed. A wide bucket means fewer rounds but more nodes
+ * relaxed again at a lower cost; a width of 1 is Dijkstra with ties done
+ * together.
+ *
+ * The order nodes are reached in depends on the threads, so the predecessors
+ * are not taken from the relaxations. A last pass over every node sets them
+ * the way DijkstraEngine breaks ties: the lowest-numbered neighbour u with
+ * cost(u) + link == cost(v). Nodes are 0-based here, like the graph.
+ */
+class DeltaSteppingEngine {
+    // cost of a node that has not been reached
+    public static final int INFINITY = DijkstraEngine.INFINITY;
+    // nodes relaxed by one task before it splits
+    private static final int GRAIN = 512;
+
+    private final ForkJoinPool pool;
+    // 0 for the average link cost of the graph at each run
+    private final int width;
+    private final AtomicIntegerArray cost;
+    private final int[] dist;
+    private final int[] pred;
+    // bucket each node is waiting in, -1 if none
+    private final int[] bucketOf;
+    // round a node was last taken out of a bucket in, to relax its heavy links
+    // once
+    private final int[] takenIn;
+    private int source;
+    private int rounds;
+    private int lastWidth;
+
+    /**
+     * @param numberOfNodes nodes in the network
+     * @param width         bucket width, 0 to use the average link cost
+     * @param pool          threads to relax on
+     */
+    public DeltaSteppingEngine(int numberOfNodes, int width, ForkJoinPool pool) {
+        this.pool = pool;
+        this.width = width;
+        cost = new AtomicIntegerArray(numberOfNodes);
+        dist = new int[numberOfNodes];
+        pred = new int[numberOfNodes];
+        bucketOf = new int[numberOfNodes];
+        takenIn = new int[numberOfNodes];
+    }
+
+    /**
+     * Delta-stepping. Calculates least-cost tree from a single node.
+     *
+     * @param graph  network topology
+     * @param source source node (0-based)
+     */
+    public void run(CsrGraph graph, int source) {
+        int n = dist.length;
+        for (int i = 0; i < n; i++) {
+            cost.set(i, INFINITY);
+        }
+        Arrays.fill(bucketOf, -1);
+        Arrays.fill(takenIn, -1);
+        this.source = source;
+        rounds = 0;
+        int delta = width > 0 ? width : averageCost(graph);
+        lastWidth = delta;
+        // a relaxation lands at most maxCost past the bucket being emptied, so
+        // that many buckets (and two for rounding) are ever in use at once
+        Buckets buckets = new Buckets(maxCost(graph) / delta + 2);
+        cost.set(source, 0);
+        bucketOf[source] = 0;
+        buckets.add(0, source);
+        IntList taken = new IntList();
+        for (int i = buckets.next(0); i >= 0; i = buckets.next(i + 1)) {
+            // light links, until the bucket stays empty
+            taken.clear();
+            while (!buckets.isEmpty(i)) {
+                IntList frontier = buckets.take(i);
+                int kept = 0;
+                for (int k = 0; k < frontier.size; k++) {
+                    int v = frontier.items[k];
+                    // skip nodes that moved to a lower bucket or were taken already
+                    if (bucketOf[v] == i) {
+                        bucketOf[v] = -1;
+                        frontier.items[kept++] = v;
+                        if (takenIn[v] != i) {
+                            takenIn[v] = i;
+                            taken.add(v);
+                        }
+                    }
+                }
+                frontier.size = kept;
+                relax(graph, frontier, delta, true, buckets);
+            }
+            // heavy links, which cannot land in this bucket
+            relax(graph, taken, delta, false, buckets);
+        }
+        for (int i = 0; i < n; i++) {
+            dist[i] = cost.get(i);
+        }
+        pool.invoke(new Canonicalize(graph, 0, n));
+    }
+
+    /**
+     * To relax one kind of link of a set of nodes in parallel and put every
+     * node whose cost went down in its bucket
+     *
+     * @param light true for the links no dearer than delta, false for the rest
+     */
+    private void relax(CsrGraph graph, IntList nodes, int delta, boolean light, Buckets buckets) {
+        if (nodes.size == 0) {
+            return;
+        }
+        rounds++;
+        IntList lowered = pool.invoke(new Relax(graph, nodes.items, 0, nodes.size, delta, light));
+        for (int k = 0; k < lowered.size; k++) {
+            int v = lowered.items[k];
+            int b = cost.get(v) / delta;
+            if (bucketOf[v] != b) {
+                bucketOf[v] = b;
+                buckets.add(b, v);
+            }
+        }
+    }
+
+    /**
+     * Relaxes the links of nodes[from] to nodes[to - 1], returning the nodes
+     * whose cost went down (a node may be there more than once)
+     */
+    private class Relax extends RecursiveTask<IntList> {
+        private static final long serialVersionUID = 1L;
+        private final CsrGraph graph;
+        private final int[] nodes;
+        private final int from, to, delta;
+        private final boolean light;
+
+        Relax(CsrGraph graph, int[] nodes, int from, int to, int delta, boolean light) {
+            this.graph = graph;
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.delta = delta;
+            this.light = light;
+        }
+
+        protected IntList compute() {
+            if (to - from > GRAIN) {
+                int mid = (from + to) >>> 1;
+                Relax left = new Relax(graph, nodes, from, mid, delta, light);
+                left.fork();
+                IntList right = new Relax(graph, nodes, mid, to, delta, light).compute();
+                IntList lowered = left.join();
+                lowered.addAll(right);
+                return lowered;
+            }
+            IntList lowered = new IntList();
+            // counted here and added to the metrics once per task
+            long relaxations = 0;
+            for (int k = from; k < to; k++) {
+                int u = nodes[k];
+                int cu = cost.get(u);
+                for (int e = graph.begin(u); e < graph.end(u); e++) {
+                    int w = graph.cost(e);
+                    if ((w <= delta) != light) {
+                        continue;
+                    }
+                    int v = graph.target(e);
+                    int cv = cu + w;
+                    relaxations++;
+                    // lower the cost of v unless another thread got it lower
+                    int old = cost.get(v);
+                    while (cv < old) {
+                        if (cost.compareAndSet(v, old, cv)) {
+                            lowered.add(v);
+                            break;
+                        }
+                        old = cost.get(v);
+                    }
+                }
+            }
+            Metrics.count(Metrics.RELAXATIONS, relaxations);
+            return lowered;
+        }
+    }
+
+    /**
+     * Sets the predecessors of nodes from to to - 1, from the final costs
+     */
+    private class Canonicalize extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final CsrGraph graph;
+        private final int from, to;
+
+        Canonicalize(CsrGraph graph, int from, int to) {
+            this.graph = graph;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > 8 * GRAIN) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Canonicalize(graph, from, mid), new Canonicalize(graph, mid, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                pred[v] = -1;
+                if (v == source) {
+                    pred[v] = source;
+                } else if (dist[v] != INFINITY) {
+                    // Tie break condition, as in DijkstraEngine
+                    for (int e = graph.begin(v); e < graph.end(v); e++) {
+                        int u = graph.target(e);
+                        if (dist[u] != INFINITY && dist[u] + graph.cost(e) == dist[v] && (pred[v] == -1 || u < pred[v])) {
+                            pred[v] = u;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Buckets of nodes kept in a ring, bucket i in slot i % slots
+     */
+    private static class Buckets {
+        private final IntList[] slots;
+        private int count;
+
+        Buckets(int numberOfSlots) {
+            slots = new IntList[numberOfSlots];
+            for (int s = 0; s < numberOfSlots; s++) {
+                slots[s] = new IntList();
+            }
+        }
+
+        void add(int bucket, int v) {
+            slots[bucket % slots.length].add(v);
+            count++;
+        }
+
+        boolean isEmpty(int bucket) {
+            return slots[bucket % slots.length].size == 0;
+        }
+
+        /**
+         * @return the nodes of a bucket, which is left empty
+         */
+        IntList take(int bucket) {
+            int s = bucket % slots.length;
+            IntList taken = slots[s];
+            slots[s] = new IntList();
+            count -= taken.size;
+            return taken;
+        }
+
+        /**
+         * @return first bucket from i on with nodes in it, -1 if there is none
+         */
+        int next(int i) {
+            if (count == 0) {
+                return -1;
+            }
+            while (isEmpty(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * A growable list of ints
+     */
+    private static class IntList {
+        int[] items = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = v;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > items.length) {
+                items = Arrays.copyOf(items, Math.max(2 * items.length, size + other.size));
+            }
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    private static int maxCost(CsrGraph graph) {
+        int max = 1;
+        for (int u = 0; u < graph.getNumberOfNodes(); u++) {
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                max = Math.max(max, graph.cost(e));
+            }
+        }
+        return max;
+    }
+
+    private static int averageCost(CsrGraph graph) {
+        long sum = 0;
+        long links = 0;
+        for (int u = 0; u < graph.getNumberOfNodes(); u++) {
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                sum += graph.cost(e);
+                links++;
+            }
+        }
+        return links == 0 ? 1 : (int) Math.max(1, sum / links);
+    }
+
+    /**
+     * To stop the threads once there are no more runs
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getNumberOfNodes() {
+        return dist.length;
+    }
+
+    /**
+     * @return number of parallel relaxation rounds in the last run
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return bucket width used by the last run
+     */
+    public int getWidth() {
+        return lastWidth;
+    }
+
+    public boolean isReachable(int node) {
+        return dist[node] != INFINITY;
+    }
+
+    public int getDistance(int node) {
+        return dist[node];
+    }
+
+    public int getPredecessor(int node) {
+        return pred[node];
+    }
+
+    public int[] getDistances() {
+        return dist;
+    }
+
+    public int[] getPredecessors() {
+        return pred;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: DijkstraEngine.java
+ * description: To compute one router's least-cost tree with Dijkstra's algorithm on reusable arrays.
+ */
+/**
+ * A DijkstraEngine is a reusable workspace for Dijkstra's algorithm. It keeps
+ * the least-cost tree from one source in primitive arrays: the cost to every
+ * node, the node it is reached through (its predecessor), and the order nodes
+ * were settled in. Nodes are 0-based here, like the graph.
+ *
+ * Ties are broken the same way lsrouter always has: among nodes with the same
+ * cost the lowest node number is settled first, and among equal-cost
+ * predecessors the lowest node number is kept.
+ */
+class DijkstraEngine {
+    // cost of a node that has not been reached
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int[] dist;
+    private final int[] pred;
+    private final int[] order;
+    private final IndexedMinHeap frontier;
+    private int source;
+    private int settled;
+
+    public DijkstraEngine(int numberOfNodes) {
+        dist = new int[numberOfNodes];
+        pred = new int[numberOfNodes];
+        order = new int[numberOfNodes];
+        frontier = new IndexedMinHeap(numberOfNodes);
+    }
+
+    /**
+     * Dijkstra. Calculates least-cost tree from a single node.
+     *
+     * @param graph  network topology
+     * @param source source node (0-based)
+     */
+    public void run(CsrGraph graph, int source) {
+        int n = dist.length;
+        for (int i = 0; i < n; i++) {
+            dist[i] = INFINITY;
+            pred[i] = -1;
+        }
+        frontier.clear();
+        this.source = source;
+        settled = 0;
+        dist[source] = 0;
+        pred[source] = source;
+        frontier.insertOrDecrease(source, 0);
+        // counted here and added to the metrics once per run
+        long relaxations = 0;
+        while (!frontier.isEmpty()) {
+            int u = frontier.poll();
+            order[settled++] = u;
+            int du = dist[u];
+            for (int e = graph.begin(u); e < graph.end(u); e++) {
+                int v = graph.target(e);
+                if (v != source) {
+                    relax(u, v, du + graph.cost(e));
+                    relaxations++;
+                }
+            }
+        }
+        Metrics.count(Metrics.RELAXATIONS, relaxations);
+    }
+
+    /**
+     * To offer a path to v through u
+     *
+     * @param u    node v would be reached through
+     * @param v    node to relax
+     * @param cost total cost of the path through u
+     */
+    private void relax(int u, int v, int cost) {
+        if (cost < dist[v]) {
+            dist[v] = cost;
+            pred[v] = u;
+            frontier.insertOrDecrease(v, cost);
+        } else if (cost == dist[v] && u < pred[v]) {
+            // Tie break condition
+            pred[v] = u;
+        }
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getNumberOfNodes() {
+        return dist.length;
+    }
+
+    /**
+     * @return number of nodes reached by the last run (including the source)
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * @param i position in settle order, 0 being the source
+     * @return node settled i-th
+     */
+    public int getSettled(int i) {
+        return order[i];
+    }
+
+    public boolean isReachable(int node) {
+        return dist[node] != INFINITY;
+    }
+
+    public int getDistance(int node) {
+        return dist[node];
+    }
+
+    public int getPredecessor(int node) {
+        return pred[node];
+    }
+
+    public int[] getDistances() {
+        return dist;
+    }
+
+    public int[] getPredecessors() {
+        return pred;
+    }
+
+    public int[] getOrder() {
+        return order;
+    }
+}
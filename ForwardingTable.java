@@ -0,0 +1,265 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: ForwardingTable.java
+ * description: To hold the next hop and cost from every router to every other, on or off the heap.
+ */
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A ForwardingTable is the forwarding information base of every router: for
+ * each source and destination, the neighbour the source forwards to and the
+ * cost of the route. It is two flat int arrays indexed by source * n + dest,
+ * so both lookups are one array access. Routers are 0-based; a destination
+ * that cannot be reached has cost -1 and the source itself as next hop.
+ *
+ * The arrays are on the heap by default. For networks whose n * n entries do
+ * not fit there (or in one Java array), they can be kept off-heap in direct
+ * buffers, or in a memory-mapped file so the operating system pages them. Both
+ * are split into segments of whole rows, each under 1 GB.
+ *
+ * Different sources' rows may be filled from different threads. Single
+ * entries are only read and set for routers of the table, as a destination
+ * past the end of a row would otherwise alias an entry of the next.
+ */
+class ForwardingTable {
+    // most ints in one off-heap or mapped segment
+    private static final int SEGMENT_INTS = 1 << 28;
+
+    private final int numberOfNodes;
+    // on the heap
+    private int[] nextHop;
+    private int[] cost;
+    // off-heap or mapped, rowsPerSegment rows in each segment
+    private IntBuffer[] nextHopSegments;
+    private IntBuffer[] costSegments;
+    private int rowsPerSegment;
+
+    private ForwardingTable(int numberOfNodes) {
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    /**
+     * @param numberOfNodes number of routers
+     * @param storage       "heap", "offheap" or "mmap:PATH"
+     * @return an empty table of the given storage
+     */
+    public static ForwardingTable create(int numberOfNodes, String storage) throws IOException {
+        if (storage.equals("heap")) {
+            return onHeap(numberOfNodes);
+        } else if (storage.equals("offheap")) {
+            return offHeap(numberOfNodes);
+        } else if (storage.startsWith("mmap:")) {
+            return mapped(numberOfNodes, storage.substring("mmap:".length()));
+        }
+        throw new IllegalArgumentException("unknown forwarding table storage " + storage);
+    }
+
+    /**
+     * @throws IllegalArgumentException if n * n entries do not fit in an array
+     */
+    public static ForwardingTable onHeap(int numberOfNodes) {
+        long size = (long) numberOfNodes * numberOfNodes;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(
+                    numberOfNodes + " routers do not fit a forwarding table on the heap, use --fib=offheap or mmap");
+        }
+        return wrap(numberOfNodes, new int[(int) size], new int[(int) size]);
+    }
+
+    /**
+     * To use arrays that already hold a table, without copying them
+     *
+     * @param nextHop next hop of entry (i, j) at index i * n + j
+     * @param cost    cost of entry (i, j) at index i * n + j, -1 if j cannot be
+     *                reached
+     */
+    public static ForwardingTable wrap(int numberOfNodes, int[] nextHop, int[] cost) {
+        ForwardingTable table = new ForwardingTable(numberOfNodes);
+        table.nextHop = nextHop;
+        table.cost = cost;
+        return table;
+    }
+
+    public static ForwardingTable offHeap(int numberOfNodes) {
+        ForwardingTable table = new ForwardingTable(numberOfNodes);
+        int segments = table.segment();
+        for (int s = 0; s < segments; s++) {
+            int ints = table.segmentInts(s);
+            table.nextHopSegments[s] = ByteBuffer.allocateDirect(4 * ints).order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+            table.costSegments[s] = ByteBuffer.allocateDirect(4 * ints).order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+        }
+        return table;
+    }
+
+    /**
+     * @param fileName file to keep the table in, created or resized as needed
+     */
+    public static ForwardingTable mapped(int numberOfNodes, String fileName) throws IOException {
+        ForwardingTable table = new ForwardingTable(numberOfNodes);
+        int segments = table.segment();
+        long half = 4L * numberOfNodes * numberOfNodes;
+        RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+        try {
+            file.setLength(2 * half);
+            FileChannel channel = file.getChannel();
+            long position = 0;
+            for (int s = 0; s < segments; s++) {
+                long bytes = 4L * table.segmentInts(s);
+                // next hops in the first half of the file, costs in the second
+                table.nextHopSegments[s] = channel.map(FileChannel.MapMode.READ_WRITE, position, bytes)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+                table.costSegments[s] = channel.map(FileChannel.MapMode.READ_WRITE, half + position, bytes)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+                position += bytes;
+            }
+        } finally {
+            // the mappings stay valid after the file is closed
+            file.close();
+        }
+        return table;
+    }
+
+    /**
+     * To size the segments of an off-heap or mapped table
+     *
+     * @return number of segments
+     */
+    private int segment() {
+        rowsPerSegment = Math.max(1, SEGMENT_INTS / Math.max(1, numberOfNodes));
+        int segments = (numberOfNodes + rowsPerSegment - 1) / rowsPerSegment;
+        nextHopSegments = new IntBuffer[segments];
+        costSegments = new IntBuffer[segments];
+        return segments;
+    }
+
+    /**
+     * @return number of ints in segment s
+     */
+    private int segmentInts(int s) {
+        int rows = Math.min(rowsPerSegment, numberOfNodes - s * rowsPerSegment);
+        return rows * numberOfNodes;
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if src or dest is not a router of the
+     *                                   table
+     */
+    private void checkEntry(int src, int dest) {
+        if (src < 0 || src >= numberOfNodes || dest < 0 || dest >= numberOfNodes) {
+            throw new IndexOutOfBoundsException(
+                    "no entry from router " + src + " to " + dest + " in a table of " + numberOfNodes);
+        }
+    }
+
+    /**
+     * @return neighbour router src forwards to for router dest
+     */
+    public int nextHop(int src, int dest) {
+        checkEntry(src, dest);
+        if (nextHop != null) {
+            return nextHop[src * numberOfNodes + dest];
+        }
+        return nextHopSegments[src / rowsPerSegment].get((src % rowsPerSegment) * numberOfNodes + dest);
+    }
+
+    /**
+     * @return cost from router src to router dest, -1 if it cannot be reached
+     */
+    public int cost(int src, int dest) {
+        checkEntry(src, dest);
+        if (cost != null) {
+            return cost[src * numberOfNodes + dest];
+        }
+        return costSegments[src / rowsPerSegment].get((src % rowsPerSegment) * numberOfNodes + dest);
+    }
+
+    public void set(int src, int dest, int nextHop, int cost) {
+        checkEntry(src, dest);
+        if (this.nextHop != null) {
+            this.nextHop[src * numberOfNodes + dest] = nextHop;
+            this.cost[src * numberOfNodes + dest] = cost;
+            return;
+        }
+        int index = (src % rowsPerSegment) * numberOfNodes + dest;
+        nextHopSegments[src / rowsPerSegment].put(index, nextHop);
+        costSegments[src / rowsPerSegment].put(index, cost);
+    }
+
+    /**
+     * To set the whole row of router src
+     *
+     * @param nextHop next hop to every router
+     * @param cost    cost to every router, -1 if it cannot be reached
+     */
+    public void setRow(int src, int[] nextHop, int[] cost) {
+        if (this.nextHop != null) {
+            System.arraycopy(nextHop, 0, this.nextHop, src * numberOfNodes, numberOfNodes);
+            System.arraycopy(cost, 0, this.cost, src * numberOfNodes, numberOfNodes);
+            return;
+        }
+        int at = (src % rowsPerSegment) * numberOfNodes;
+        // duplicates, so rows can be set from several threads
+        IntBuffer hops = nextHopSegments[src / rowsPerSegment].duplicate();
+        hops.position(at);
+        hops.put(nextHop, 0, numberOfNodes);
+        IntBuffer costs = costSegments[src / rowsPerSegment].duplicate();
+        costs.position(at);
+        costs.put(cost, 0, numberOfNodes);
+    }
+
+    /**
+     * To set every row from arrays holding a whole table
+     *
+     * @param nextHop next hop of entry (i, j) at index i * n + j
+     * @param cost    cost of entry (i, j) at index i * n + j, -1 if j cannot be
+     *                reached
+     */
+    public void setAll(int[] nextHop, int[] cost) {
+        if (this.nextHop != null) {
+            System.arraycopy(nextHop, 0, this.nextHop, 0, this.nextHop.length);
+            System.arraycopy(cost, 0, this.cost, 0, this.cost.length);
+            return;
+        }
+        for (int s = 0; s < nextHopSegments.length; s++) {
+            int at = s * rowsPerSegment * numberOfNodes;
+            IntBuffer hops = nextHopSegments[s].duplicate();
+            hops.position(0);
+            hops.put(nextHop, at, segmentInts(s));
+            IntBuffer costs = costSegments[s].duplicate();
+            costs.position(0);
+            costs.put(cost, at, segmentInts(s));
+        }
+    }
+
+    /**
+     * To print the forwarding table of every router, each followed by a blank
+     * line, one "<dest> <next hop> <cost>" line per destination
+     *
+     * @param out buffer to print to
+     */
+    public void print(OutputBuffer out, int offset) {
+        for (int j = 0; j < numberOfNodes; j++) {
+            for (int i = 0; i < numberOfNodes; i++) {
+                out.print((i + 1) - (1 - offset));
+                out.print(' ');
+                out.print(nextHop(j, i) + 1 - (1 - offset));
+                out.print(' ');
+                out.print(cost(j, i));
+                out.print('\n');
+            }
+            out.println();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: IncrementalDistanceVector.java
+ * description: To repair the distance vectors after each link change instead of converging from scratch.
+ */
+/**
+ * IncrementalDistanceVector keeps the converged distance vectors of every
+ * router and re-converges them after a link change, starting from the two ends
+ * of the link instead of from the raw topology.
+ *
+ * Entry (i, j) is router i's cost to router j and the neighbour it goes
+ * through, like a Distance, kept flat at index i * n + j. A cost of -1 means j
+ * cannot be reached.
+ *
+ * A cheaper (or new) link is handled directly: its two ends offer each other
+ * their whole vectors, and every entry that gets cheaper is offered on to its
+ * neighbours. A dearer (or removed) link first invalidates every entry whose
+ * route crosses it, so no router can keep counting on a stale cost (count to
+ * infinity), then those entries are re-learned from the neighbours and offered
+ * on the same way. Offers of the same cost go to the lowest-numbered neighbour,
+ * which is the tie break distanceVector converges to, so the vectors match a
+ * recompute from scratch.
+ */
+class IncrementalDistanceVector {
+    private final int numberOfNodes;
+    private final int[] cost;
+    private final int[] through;
+
+    // entries whose cost changed and still have to be offered to the neighbours
+    private int[] queueRouter = new int[64];
+    private int[] queueDest = new int[64];
+    private int head, tail, queued;
+    // one bit per entry, set while the entry is in the queue
+    private final long[] inQueue;
+    // routers cut off by one invalidation
+    private final int[] subtree;
+
+    /**
+     * @param numberOfNodes number of routers
+     * @param cost          converged costs, entry (i, j) at index i * n + j
+     * @param through       converged next hops, entry (i, j) at index i * n + j
+     * @throws IllegalArgumentException if n * n entries do not fit in an array
+     */
+    public IncrementalDistanceVector(int numberOfNodes, int[] cost, int[] through) {
+        this.numberOfNodes = numberOfNodes;
+        int n = numberOfNodes;
+        BellmanFordEngine.checkSize(n);
+        this.cost = cost.clone();
+        this.through = through.clone();
+        inQueue = new long[(int) (((long) n * n + 63) >>> 6)];
+        subtree = new int[n];
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return costs, entry (i, j) at index i * n + j
+     */
+    public int[] getCosts() {
+        return cost;
+    }
+
+    /**
+     * @return next hops, entry (i, j) at index i * n + j
+     */
+    public int[] getThroughs() {
+        return through;
+    }
+
+    /**
+     * @return cost from router i to router j, -1 if it cannot be reached
+     */
+    public int getCost(int i, int j) {
+        return cost[i * numberOfNodes + j];
+    }
+
+    /**
+     * @return neighbour router i goes through to reach router j
+     */
+    public int getThrough(int i, int j) {
+        return through[i * numberOfNodes + j];
+    }
+
+    /**
+     * To re-converge every vector after the link between u and v changed. The
+     * graph must already hold the new cost.
+     *
+     * @param graph   graph after the change
+     * @param u       one end of the link (0-based)
+     * @param v       other end of the link (0-based)
+     * @param oldCost cost before the change, 0 if there was no link
+     */
+    public void applyChange(CsrGraph graph, int u, int v, int oldCost) {
+        int newCost = graph.getCost(u, v);
+        if (newCost == oldCost || u == v) {
+            return;
+        }
+        int n = numberOfNodes;
+        if (oldCost == 0 || (newCost != 0 && newCost < oldCost)) {
+            // the ends offer each other everything they can reach
+            for (int j = 0; j < n; j++) {
+                if (cost[u * n + j] != -1) {
+                    offer(u, j, v, newCost);
+                }
+                if (cost[v * n + j] != -1) {
+                    offer(v, j, u, newCost);
+                }
+            }
+        } else {
+            for (int j = 0; j < n; j++) {
+                if (through[u * n + j] == v && u != j) {
+                    invalidate(graph, u, j);
+                } else if (through[v * n + j] == u && v != j) {
+                    invalidate(graph, v, j);
+                }
+            }
+        }
+        propagate(graph);
+    }
+
+    /**
+     * To invalidate the route of router root to dest and of every router whose
+     * route to dest goes through root, then re-learn them from the neighbours
+     */
+    private void invalidate(CsrGraph graph, int root, int dest) {
+        int n = numberOfNodes;
+        // the routes through root form a tree below it
+        int count = 0;
+        subtree[count++] = root;
+        cost[root * n + dest] = -1;
+        for (int k = 0; k < count; k++) {
+            int x = subtree[k];
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                int y = graph.target(e);
+                if (y != dest && through[y * n + dest] == x && cost[y * n + dest] != -1) {
+                    cost[y * n + dest] = -1;
+                    subtree[count++] = y;
+                }
+            }
+        }
+        // every invalidated router asks its neighbours for their routes
+        for (int k = 0; k < count; k++) {
+            int x = subtree[k];
+            int best = -1;
+            int bestThrough = x;
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                int y = graph.target(e);
+                int c = cost[y * n + dest];
+                if (c != -1 && (best == -1 || graph.cost(e) + c < best)) {
+                    // rows are sorted, so the lowest-numbered neighbour wins ties
+                    best = graph.cost(e) + c;
+                    bestThrough = y;
+                }
+            }
+            cost[x * n + dest] = best;
+            through[x * n + dest] = bestThrough;
+            push(x, dest);
+        }
+    }
+
+    /**
+     * To offer the neighbours of every queued entry its new cost, until nothing
+     * changes any more
+     */
+    private void propagate(CsrGraph graph) {
+        int n = numberOfNodes;
+        while (queued > 0) {
+            int x = queueRouter[head];
+            int j = queueDest[head];
+            head = (head + 1) % queueRouter.length;
+            queued--;
+            int index = x * n + j;
+            inQueue[index >>> 6] &= ~(1L << index);
+            if (cost[index] == -1) {
+                continue;
+            }
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                offer(x, j, graph.target(e), graph.cost(e));
+            }
+        }
+    }
+
+    /**
+     * To offer router i the route of its neighbour x to router j
+     *
+     * @param x        router offering its route
+     * @param j        destination of the route
+     * @param i        router being offered the route
+     * @param linkCost cost of the link between i and x
+     */
+    private void offer(int x, int j, int i, int linkCost) {
+        if (i == j) {
+            return;
+        }
+        int n = numberOfNodes;
+        int c = cost[x * n + j] + linkCost;
+        int index = i * n + j;
+        if (cost[index] == -1 || c < cost[index]) {
+            cost[index] = c;
+            through[index] = x;
+            push(i, j);
+        } else if (c == cost[index] && x < through[index]) {
+            // Tie break condition
+            through[index] = x;
+        }
+    }
+
+    private void push(int router, int dest) {
+        int index = router * numberOfNodes + dest;
+        if ((inQueue[index >>> 6] & (1L << index)) != 0) {
+            return;
+        }
+        inQueue[index >>> 6] |= 1L << index;
+        if (queued == queueRouter.length) {
+            growQueue();
+        }
+        queueRouter[tail] = router;
+        queueDest[tail] = dest;
+        tail = (tail + 1) % queueRouter.length;
+        queued++;
+    }
+
+    private void growQueue() {
+        int[] newRouter = new int[queueRouter.length * 2];
+        int[] newDest = new int[queueRouter.length * 2];
+        for (int k = 0; k < queued; k++) {
+            newRouter[k] = queueRouter[(head + k) % queueRouter.length];
+            newDest[k] = queueDest[(head + k) % queueRouter.length];
+        }
+        queueRouter = newRouter;
+        queueDest = newDest;
+        head = 0;
+        tail = queued;
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: IncrementalShortestPaths.java
+ * description: To keep every router's least-cost tree and repair it after each link change.
+ */
+/**
+ * IncrementalShortestPaths keeps the least-cost tree of every router and
+ * repairs them when a link changes, in the style of Ramalingam and Reps,
+ * instead of running Dijkstra again from every source.
+ *
+ * A cheaper link only moves the nodes it actually brings closer, so those are
+ * found with a Dijkstra seeded at the ends of the link. A dearer (or removed)
+ * link only moves the subtree hanging below it, so that subtree is cut off and
+ * re-attached with a Dijkstra seeded from its border. Either way the
+ * predecessors of the moved nodes and their neighbours are chosen again with
+ * the lowest-node-number tie break, so the trees are the same ones
+ * DijkstraEngine would build from scratch.
+ */
+class IncrementalShortestPaths {
+    private static final int INFINITY = DijkstraEngine.INFINITY;
+
+    private final int numberOfNodes;
+    // dist[s][v] and pred[s][v] are the least-cost tree of router s
+    private final int[][] dist;
+    private final int[][] pred;
+
+    // scratch space shared by every repair
+    private final IndexedMinHeap frontier;
+    private final int[] mark;
+    private int markValue;
+    private final int[] touched;
+    private int touchedCount;
+
+    public IncrementalShortestPaths(CsrGraph graph) {
+        numberOfNodes = graph.getNumberOfNodes();
+        dist = new int[numberOfNodes][];
+        pred = new int[numberOfNodes][];
+        DijkstraEngine engine = new DijkstraEngine(numberOfNodes);
+        for (int s = 0; s < numberOfNodes; s++) {
+            engine.run(graph, s);
+            dist[s] = engine.getDistances().clone();
+            pred[s] = engine.getPredecessors().clone();
+        }
+        frontier = new IndexedMinHeap(numberOfNodes);
+        mark = new int[numberOfNodes];
+        touched = new int[numberOfNodes];
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @param source router (0-based)
+     * @return cost from source to every node, DijkstraEngine.INFINITY if it
+     *         cannot be reached
+     */
+    public int[] getDistances(int source) {
+        return dist[source];
+    }
+
+    /**
+     * @param source router (0-based)
+     * @return node every node is reached through from source, -1 if it cannot be
+     *         reached
+     */
+    public int[] getPredecessors(int source) {
+        return pred[source];
+    }
+
+    /**
+     * To repair every tree after the link between u and v changed. The graph
+     * must already hold the new cost.
+     *
+     * @param graph   graph after the change
+     * @param u       one end of the link (0-based)
+     * @param v       other end of the link (0-based)
+     * @param oldCost cost before the change, 0 if there was no link
+     */
+    public void applyChange(CsrGraph graph, int u, int v, int oldCost) {
+        int newCost = graph.getCost(u, v);
+        if (newCost == oldCost || u == v) {
+            return;
+        }
+        for (int s = 0; s < numberOfNodes; s++) {
+            if (oldCost == 0 || (newCost != 0 && newCost < oldCost)) {
+                repairDecrease(graph, s, u, v, newCost);
+            } else {
+                repairIncrease(graph, s, u, v);
+            }
+        }
+    }
+
+    /**
+     * The link got cheaper (or was added): spread the lower costs out from its
+     * ends
+     */
+    private void repairDecrease(CsrGraph graph, int s, int u, int v, int cost) {
+        int[] d = dist[s];
+        boolean tie = false;
+        frontier.clear();
+        nextMark();
+        if (d[u] != INFINITY && d[u] + cost <= d[v]) {
+            tie = true;
+            if (d[u] + cost < d[v]) {
+                d[v] = d[u] + cost;
+                frontier.insertOrDecrease(v, d[v]);
+            }
+        }
+        if (d[v] != INFINITY && d[v] + cost <= d[u]) {
+            tie = true;
+            if (d[v] + cost < d[u]) {
+                d[u] = d[v] + cost;
+                frontier.insertOrDecrease(u, d[u]);
+            }
+        }
+        if (!tie) {
+            // neither end comes closer, nor ties: the tree does not change
+            return;
+        }
+        touch(u);
+        touch(v);
+        while (!frontier.isEmpty()) {
+            int x = frontier.poll();
+            touch(x);
+            int dx = d[x];
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                int y = graph.target(e);
+                if (dx + graph.cost(e) < d[y]) {
+                    d[y] = dx + graph.cost(e);
+                    frontier.insertOrDecrease(y, d[y]);
+                }
+            }
+        }
+        choosePredecessors(graph, s);
+    }
+
+    /**
+     * The link got dearer (or was removed): cut off the subtree below it and
+     * re-attach it from its border
+     */
+    private void repairIncrease(CsrGraph graph, int s, int u, int v) {
+        int[] d = dist[s];
+        int[] p = pred[s];
+        int root;
+        if (p[v] == u && v != s) {
+            root = v;
+        } else if (p[u] == v && u != s) {
+            root = u;
+        } else {
+            // not a tree link, and it was not the lowest-numbered tie either
+            return;
+        }
+        frontier.clear();
+        nextMark();
+        // collect the subtree: children of x are neighbours reached through x
+        touch(root);
+        for (int i = 0; i < touchedCount; i++) {
+            int x = touched[i];
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                int y = graph.target(e);
+                if (p[y] == x && y != s && mark[y] != markValue) {
+                    touch(y);
+                }
+            }
+        }
+        int subtreeSize = touchedCount;
+        for (int i = 0; i < subtreeSize; i++) {
+            d[touched[i]] = INFINITY;
+        }
+        // best way into the subtree from the nodes that kept their cost
+        for (int i = 0; i < subtreeSize; i++) {
+            int y = touched[i];
+            int best = INFINITY;
+            for (int e = graph.begin(y); e < graph.end(y); e++) {
+                int z = graph.target(e);
+                if (mark[z] != markValue && d[z] != INFINITY && d[z] + graph.cost(e) < best) {
+                    best = d[z] + graph.cost(e);
+                }
+            }
+            if (best != INFINITY) {
+                d[y] = best;
+                frontier.insertOrDecrease(y, best);
+            }
+        }
+        while (!frontier.isEmpty()) {
+            int x = frontier.poll();
+            int dx = d[x];
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                int y = graph.target(e);
+                if (mark[y] == markValue && dx + graph.cost(e) < d[y]) {
+                    d[y] = dx + graph.cost(e);
+                    frontier.insertOrDecrease(y, d[y]);
+                }
+            }
+        }
+        touch(u);
+        touch(v);
+        choosePredecessors(graph, s);
+    }
+
+    /**
+     * To choose the predecessor of every touched node and of their neighbours:
+     * the lowest-numbered neighbour the node is reached through at its cost
+     */
+    private void choosePredecessors(CsrGraph graph, int s) {
+        int[] d = dist[s];
+        int[] p = pred[s];
+        int count = touchedCount;
+        for (int i = 0; i < count; i++) {
+            int x = touched[i];
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                touch(graph.target(e));
+            }
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            int y = touched[i];
+            if (y == s) {
+                continue;
+            }
+            int best = -1;
+            if (d[y] != INFINITY) {
+                for (int e = graph.begin(y); e < graph.end(y); e++) {
+                    int z = graph.target(e);
+                    if (d[z] != INFINITY && d[z] + graph.cost(e) == d[y]) {
+                        // rows are sorted, so the first one is the lowest-numbered
+                        best = z;
+                        break;
+                    }
+                }
+            }
+            p[y] = best;
+        }
+    }
+
+    private void nextMark() {
+        markValue++;
+        touchedCount = 0;
+    }
+
+    private void touch(int x) {
+        if (mark[x] != markValue) {
+            mark[x] = markValue;
+            touched[touchedCount++] = x;
+        }
+    }
+}
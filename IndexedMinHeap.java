@@ -0,0 +1,135 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: IndexedMinHeap.java
+ * description: To hold a binary min-heap of nodes whose keys can be decreased.
+ */
+/**
+ * An IndexedMinHeap is a binary min-heap of nodes (0 to capacity - 1) keyed by
+ * an int cost. Each node can be in the heap at most once, and its key can be
+ * lowered in place (decrease-key). Equal keys are broken by the lower node
+ * number, which is the same order the old linear scan over the frontier used.
+ */
+class IndexedMinHeap {
+    // heap[i] is the node at heap position i
+    private final int[] heap;
+    // pos[node] is the heap position of node, or -1 if not in the heap
+    private final int[] pos;
+    // key[node] is the cost node is currently keyed by
+    private final int[] key;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        key = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            pos[i] = -1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return least key in the heap, which must not be empty
+     */
+    public int peekKey() {
+        return key[heap[0]];
+    }
+
+    public boolean contains(int node) {
+        return pos[node] != -1;
+    }
+
+    /**
+     * To empty the heap so the same workspace can be used for another run
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * To insert a node, or lower its key if it is already in the heap. A higher
+     * key than the current one is ignored.
+     *
+     * @param node node to insert
+     * @param cost key of the node
+     */
+    public void insertOrDecrease(int node, int cost) {
+        int i = pos[node];
+        if (i == -1) {
+            i = size++;
+            heap[i] = node;
+            pos[node] = i;
+        } else if (cost >= key[node]) {
+            return;
+        }
+        key[node] = cost;
+        siftUp(i);
+    }
+
+    /**
+     * To remove the node with the least key (lowest node number on ties)
+     *
+     * @return node removed
+     */
+    public int poll() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private boolean less(int a, int b) {
+        return key[a] < key[b] || (key[a] == key[b] && a < b);
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(node, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        pos[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], node)) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = node;
+        pos[node] = i;
+    }
+}
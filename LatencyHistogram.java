@@ -0,0 +1,136 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: LatencyHistogram.java
+ * description: To count durations in HDR-style buckets and read percentiles from them.
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A LatencyHistogram counts durations in nanoseconds the way an HdrHistogram
+ * does: values below 2^SUB_BUCKET_BITS get a bucket each, and every power of
+ * two above that is split into 2^(SUB_BUCKET_BITS - 1) equal buckets, so any
+ * value is known to within 1 part in 64 with a fixed 30 KB of counts, from
+ * nanoseconds to centuries.
+ *
+ * Values may be recorded from several threads. Recording one is an atomic
+ * increment of its bucket, two atomic adds to the count and total, and a
+ * compare-and-set loop on the max when it is a new one, all on counters the
+ * threads share, so it is meant for whole stages (a Dijkstra run, a row, a
+ * query), not for anything done in an inner loop.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value duration in nanoseconds, negative counting as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * @return greatest value that falls in bucket b
+     */
+    private static long highestValue(int b) {
+        if (b < SUB_BUCKETS) {
+            return b;
+        }
+        int shift = (b - SUB_BUCKETS) / HALF + 1;
+        long sub = (b - SUB_BUCKETS) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * To add every value recorded by another histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int b = 0; b < BUCKETS; b++) {
+            long c = other.counts.get(b);
+            if (c != 0) {
+                counts.addAndGet(b, c);
+            }
+        }
+        count.addAndGet(other.count.get());
+        total.addAndGet(other.total.get());
+        long m = max.get();
+        long value = other.max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * To forget every value, not while values are being recorded
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return sum of every value recorded
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return value that percentile of the values recorded are at or below, to
+     *         within the precision of the buckets, 0 if there are none
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(highestValue(b), max.get());
+            }
+        }
+        return max.get();
+    }
+}
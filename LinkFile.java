@@ -0,0 +1,208 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: LinkFile.java
+ * description: To read a topology or changes file into primitive arrays.
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A LinkFile is a topology or changes file, one <src> <dest> <cost> link per
+ * line, read into parallel primitive arrays instead of a list of Links. Entry
+ * i is the link on the i-th line that is not blank. A changes file may give a
+ * fourth <time> column, which batching by time window reads.
+ */
+class LinkFile {
+    private int count;
+    private int[] src, dest, cost;
+    // time of each change, null if not a changes file
+    private int[] time;
+    // number of lines that gave a time
+    private int timed;
+
+    private LinkFile() {
+        src = new int[1024];
+        dest = new int[1024];
+        cost = new int[1024];
+    }
+
+    /**
+     * Links that were already decoded, e.g. from a Snapshot
+     */
+    LinkFile(int count, int[] src, int[] dest, int[] cost) {
+        this.count = count;
+        this.src = src;
+        this.dest = dest;
+        this.cost = cost;
+    }
+
+    /**
+     * To read a topology or changes file
+     *
+     * @param fileName the name of the file
+     * @return the links read
+     * @throws IllegalArgumentException naming the line if one is malformed
+     */
+    public static LinkFile read(String fileName) throws IOException {
+        return read(fileName, false);
+    }
+
+    /**
+     * To read a changes file, whose lines may end with a <time> column
+     *
+     * @param fileName the name of the file
+     * @return the changes read
+     * @throws IllegalArgumentException naming the line if one is malformed
+     */
+    public static LinkFile readChanges(String fileName) throws IOException {
+        return read(fileName, true);
+    }
+
+    private static LinkFile read(String fileName, boolean changes) throws IOException {
+        LinkFile links = new LinkFile();
+        if (changes) {
+            links.time = new int[links.src.length];
+        }
+        MappedLines lines = new MappedLines(fileName);
+        while (lines.nextLine()) {
+            if (links.count == links.src.length) {
+                links.grow();
+            }
+            links.src[links.count] = lines.readInt("<src>");
+            links.dest[links.count] = lines.readInt("<dest>");
+            links.cost[links.count] = lines.readInt("<cost>");
+            if (changes && lines.restStart() < lines.lineEnd()) {
+                links.time[links.count] = lines.readInt("<time>");
+                links.timed++;
+            }
+            lines.expectEnd();
+            links.count++;
+        }
+        return links;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getSrc(int i) {
+        return src[i];
+    }
+
+    public int getDest(int i) {
+        return dest[i];
+    }
+
+    public int getCost(int i) {
+        return cost[i];
+    }
+
+    /**
+     * @return true if every line gave a <time>
+     */
+    public boolean hasTimes() {
+        return time != null && timed == count;
+    }
+
+    /**
+     * @return time of change i, see hasTimes
+     */
+    public int getTime(int i) {
+        return time[i];
+    }
+
+    /**
+     * To renumber the nodes of every link
+     *
+     * @param delta number added to every src and dest
+     */
+    public void shift(int delta) {
+        for (int i = 0; i < count; i++) {
+            src[i] += delta;
+            dest[i] += delta;
+        }
+    }
+
+    /**
+     * To get the offset the same way AlgorithmUtils.getOffset does for a list of
+     * Links
+     *
+     * @return offset, a number. really the minimum node number.
+     */
+    public int getOffset() {
+        int min = -1;
+        for (int i = 0; i < count; i++) {
+            if (src[i] < min) {
+                min = src[i];
+            } else if (dest[i] < min) {
+                min = dest[i];
+            } else if (min == -1) {
+                min = Math.min(src[i], dest[i]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return number of discrete nodes (routers)
+     */
+    public int getNumberOfNodes() {
+        return getNodes().length;
+    }
+
+    /**
+     * @return every discrete node number, in increasing order
+     */
+    public int[] getNodes() {
+        int[] nodes = new int[2 * count];
+        System.arraycopy(src, 0, nodes, 0, count);
+        System.arraycopy(dest, 0, nodes, count, count);
+        Arrays.sort(nodes);
+        int distinct = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            if (i == 0 || nodes[i] != nodes[i - 1]) {
+                nodes[distinct++] = nodes[i];
+            }
+        }
+        return Arrays.copyOf(nodes, distinct);
+    }
+
+    /**
+     * To get the network as a graph
+     *
+     * @param offset minimum node number, which becomes node 0
+     * @return graph of the network
+     */
+    public CsrGraph toGraph(int offset) {
+        int[] from = new int[count];
+        int[] to = new int[count];
+        for (int i = 0; i < count; i++) {
+            from[i] = src[i] - offset;
+            to[i] = dest[i] - offset;
+        }
+        return CsrGraph.fromLinks(getNumberOfNodes(), from, to, cost, count);
+    }
+
+    /**
+     * @return the links as the proprietary list of Links
+     */
+    public List<Link> toLinks() {
+        List<Link> ret = new ArrayList<Link>(count);
+        for (int i = 0; i < count; i++) {
+            ret.add(new Link(src[i], dest[i], cost[i]));
+        }
+        return ret;
+    }
+
+    private void grow() {
+        src = Arrays.copyOf(src, 2 * src.length);
+        dest = Arrays.copyOf(dest, 2 * dest.length);
+        cost = Arrays.copyOf(cost, 2 * cost.length);
+        if (time != null) {
+            time = Arrays.copyOf(time, 2 * time.length);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: MappedFile.java
+ * description: To read a file of any size through read-only memory mappings.
+ */
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A MappedFile is a read-only memory mapping of a whole file, of any size. One
+ * mapping cannot be larger than 2 GB, so the file is mapped in chunks of 1 GB
+ * and its bytes are addressed by long offsets. Ints are read little-endian,
+ * and as chunks are a multiple of 4 bytes an aligned int is never split
+ * between two of them.
+ */
+class MappedFile {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final String fileName;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    /**
+     * @param fileName file to map
+     * @throws IllegalArgumentException if the file cannot be opened
+     */
+    public MappedFile(String fileName) throws IOException {
+        this.fileName = fileName;
+        RandomAccessFile file;
+        try {
+            file = new RandomAccessFile(fileName, "r");
+        } catch (FileNotFoundException e) {
+            // reported like a malformed line, not as a stack trace
+            throw new IllegalArgumentException(fileName + ": cannot open, no such file or not readable");
+        }
+        try {
+            FileChannel channel = file.getChannel();
+            size = channel.size();
+            chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int c = 0; c < chunks.length; c++) {
+                long start = (long) c << CHUNK_BITS;
+                // the mappings stay valid after the file is closed
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, 1L << CHUNK_BITS));
+                chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return number of bytes in the file
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return byte at a position of the file
+     */
+    public byte get(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].get((int) (position & CHUNK_MASK));
+    }
+
+    /**
+     * To copy bytes out of the file
+     *
+     * @param position where the first is
+     * @param count    number of bytes, put in b from offset
+     */
+    public void get(long position, byte[] b, int offset, int count) {
+        while (count > 0) {
+            ByteBuffer chunk = chunks[(int) (position >>> CHUNK_BITS)].duplicate();
+            chunk.position((int) (position & CHUNK_MASK));
+            int piece = Math.min(count, chunk.remaining());
+            chunk.get(b, offset, piece);
+            position += piece;
+            offset += piece;
+            count -= piece;
+        }
+    }
+
+    /**
+     * @return little-endian int at a position of the file, a multiple of 4
+     */
+    public int getInt(long position) {
+        return chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & CHUNK_MASK));
+    }
+
+    /**
+     * To copy little-endian ints out of the file
+     *
+     * @param position where the first is, a multiple of 4
+     * @param values   filled with as many ints as it holds
+     */
+    public void getInts(long position, int[] values) {
+        int done = 0;
+        while (done < values.length) {
+            ByteBuffer chunk = chunks[(int) (position >>> CHUNK_BITS)].duplicate();
+            chunk.position((int) (position & CHUNK_MASK));
+            int count = Math.min(values.length - done, chunk.remaining() >>> 2);
+            chunk.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, done, count);
+            done += count;
+            position += 4L * count;
+        }
+    }
+
+    /**
+     * To add bytes from to to - 1 of the file to a checksum
+     */
+    public void update(CRC32 crc, long from, long to) {
+        while (from < to) {
+            ByteBuffer chunk = chunks[(int) (from >>> CHUNK_BITS)].duplicate();
+            int at = (int) (from & CHUNK_MASK);
+            int end = (int) Math.min(chunk.capacity(), at + (to - from));
+            chunk.limit(end);
+            chunk.position(at);
+            crc.update(chunk);
+            from += end - at;
+        }
+    }
+}
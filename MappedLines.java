@@ -0,0 +1,172 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: MappedLines.java
+ * description: To parse an input file line by line straight out of its memory mapping.
+ */
+import java.io.IOException;
+
+/**
+ * MappedLines reads an input file line by line straight out of a memory
+ * mapping of it, in chunks so the file may be larger than 2 GB. Fields are
+ * scanned from the bytes in place, so reading a line allocates nothing; text
+ * fields are handed out as offsets into the mapping.
+ *
+ * Blank lines are skipped, fields may be separated by any run of spaces and
+ * tabs, and a line may end in \r\n. A line that does not fit its format is
+ * reported as an IllegalArgumentException naming the file and line number, and
+ * so is a file that cannot be opened.
+ */
+class MappedLines {
+    private final String fileName;
+    private final MappedFile bytes;
+    private final long size;
+    // next byte to read, and end of the current line (before any \r)
+    private long position, lineEnd;
+    private long nextLineStart;
+    private int lineNumber;
+
+    /**
+     * @param fileName file to map
+     * @throws IllegalArgumentException if the file cannot be opened
+     */
+    public MappedLines(String fileName) throws IOException {
+        this.fileName = fileName;
+        bytes = new MappedFile(fileName);
+        size = bytes.size();
+    }
+
+    /**
+     * To move to the next line that is not blank
+     *
+     * @return false if there are no more lines
+     */
+    public boolean nextLine() {
+        while (nextLineStart < size) {
+            position = nextLineStart;
+            lineNumber++;
+            long end = position;
+            while (end < size && bytes.get(end) != '\n') {
+                end++;
+            }
+            nextLineStart = end + 1;
+            if (end > position && bytes.get(end - 1) == '\r') {
+                end--;
+            }
+            lineEnd = end;
+            skipSpaces();
+            if (position < lineEnd) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * To read a whole number field of the current line
+     *
+     * @param field name of the field, for the error message
+     */
+    public int readInt(String field) {
+        skipSpaces();
+        long start = position;
+        boolean negative = false;
+        if (position < lineEnd && (bytes.get(position) == '-' || bytes.get(position) == '+')) {
+            negative = bytes.get(position) == '-';
+            position++;
+        }
+        // accumulate negatively so Integer.MIN_VALUE fits
+        long value = 0;
+        int digits = 0;
+        while (position < lineEnd) {
+            int b = bytes.get(position);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 - (b - '0');
+            if (value < Integer.MIN_VALUE) {
+                throw error(field + " is out of range");
+            }
+            digits++;
+            position++;
+        }
+        if (digits == 0 || (position < lineEnd && !isSpace(bytes.get(position)))) {
+            position = start;
+            throw error("expected a number for " + field + " but found '" + token() + "'");
+        }
+        if (!negative) {
+            if (value == Integer.MIN_VALUE) {
+                throw error(field + " is out of range");
+            }
+            value = -value;
+        }
+        return (int) value;
+    }
+
+    /**
+     * To skip to the rest of the current line, after any spaces
+     *
+     * @return offset of the rest of the line in the mapping
+     */
+    public long restStart() {
+        skipSpaces();
+        return position;
+    }
+
+    /**
+     * @return offset of the end of the current line in the mapping, not counting
+     *         the line break
+     */
+    public long lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * To check nothing but spaces is left on the current line
+     */
+    public void expectEnd() {
+        skipSpaces();
+        if (position < lineEnd) {
+            throw error("unexpected '" + token() + "' at end of line");
+        }
+    }
+
+    /**
+     * @return whole mapping of the file
+     */
+    public MappedFile getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return exception to throw for a malformed current line
+     */
+    public IllegalArgumentException error(String reason) {
+        return new IllegalArgumentException(fileName + ":" + lineNumber + ": " + reason);
+    }
+
+    private void skipSpaces() {
+        while (position < lineEnd && isSpace(bytes.get(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * @return the field at the read position, for error messages
+     */
+    private String token() {
+        long end = position;
+        while (end < lineEnd && !isSpace(bytes.get(end))) {
+            end++;
+        }
+        byte[] b = new byte[(int) (end - position)];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = bytes.get(position + i);
+        }
+        return new String(b);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
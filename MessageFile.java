@@ -0,0 +1,191 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: MessageFile.java
+ * description: To read a messages file into primitive arrays, leaving the texts in the mapping.
+ */
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A MessageFile is a messages file, one <src> <dest> <message> per line, read
+ * into primitive arrays. The message text is not copied out: it is kept as an
+ * offset and length into the mapping of the file, and only turned into a
+ * String when it is asked for.
+ */
+class MessageFile {
+    private final MappedFile bytes;
+    private int count;
+    private int[] src, dest;
+    // where the text of each message is in the mapping
+    private long[] start;
+    private int[] length;
+
+    private MessageFile(MappedFile bytes) {
+        this.bytes = bytes;
+        src = new int[64];
+        dest = new int[64];
+        start = new long[64];
+        length = new int[64];
+    }
+
+    /**
+     * Messages that were already decoded, e.g. from a Snapshot
+     *
+     * @param bytes  mapping holding the text of the messages
+     * @param start  offset of the text of each message in bytes
+     * @param length length of the text of each message
+     */
+    MessageFile(MappedFile bytes, int count, int[] src, int[] dest, long[] start, int[] length) {
+        this.bytes = bytes;
+        this.count = count;
+        this.src = src;
+        this.dest = dest;
+        this.start = start;
+        this.length = length;
+    }
+
+    /**
+     * To read a messages file
+     *
+     * @param fileName the name of the message file
+     * @return the messages read
+     * @throws IllegalArgumentException naming the line if one is malformed
+     */
+    public static MessageFile read(String fileName) throws IOException {
+        return read(fileName, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * To read a messages file between the routers of a topology
+     *
+     * @param fileName the name of the message file
+     * @param first    lowest router number of the topology
+     * @param last     highest router number of the topology
+     * @return the messages read
+     * @throws IllegalArgumentException naming the line if one is malformed or
+     *                                  names a router outside first to last
+     */
+    public static MessageFile read(String fileName, int first, int last) throws IOException {
+        MappedLines lines = new MappedLines(fileName);
+        MessageFile messages = new MessageFile(lines.getBytes());
+        while (lines.nextLine()) {
+            if (messages.count == messages.src.length) {
+                messages.grow();
+            }
+            int i = messages.count;
+            messages.src[i] = lines.readInt("<src>");
+            messages.dest[i] = lines.readInt("<dest>");
+            checkRouter(lines, "<src>", messages.src[i], first, last);
+            checkRouter(lines, "<dest>", messages.dest[i], first, last);
+            messages.start[i] = lines.restStart();
+            messages.length[i] = (int) (lines.lineEnd() - messages.start[i]);
+            messages.count++;
+        }
+        return messages;
+    }
+
+    private static void checkRouter(MappedLines lines, String field, int router, int first, int last) {
+        if (router < first || router > last) {
+            throw lines.error(field + " " + router + " is not a router of the topology (" + first + " to " + last
+                    + ")");
+        }
+    }
+
+    /**
+     * @return index of the first message to or from a router outside first to
+     *         last, -1 if there is none
+     */
+    public int findOutside(int first, int last) {
+        for (int i = 0; i < count; i++) {
+            if (src[i] < first || src[i] > last || dest[i] < first || dest[i] > last) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getSrc(int i) {
+        return src[i];
+    }
+
+    public int getDest(int i) {
+        return dest[i];
+    }
+
+    /**
+     * @return text of message i
+     */
+    public String getMessage(int i) {
+        return new String(getMessageBytes(i), Charset.defaultCharset());
+    }
+
+    /**
+     * @return text of message i, as it is in the file
+     */
+    public byte[] getMessageBytes(int i) {
+        byte[] text = new byte[length[i]];
+        for (int k = 0; k < text.length; k++) {
+            text[k] = bytes.get(start[i] + k);
+        }
+        return text;
+    }
+
+    /**
+     * To print the text of message i as it is in the file, without copying it
+     * out first
+     */
+    public void printMessage(OutputBuffer out, int i) {
+        out.print(bytes, start[i], length[i]);
+    }
+
+    /**
+     * @return true if the text of message i is plain ASCII, which reads the same
+     *         in every charset
+     */
+    public boolean isAscii(int i) {
+        for (int k = 0; k < length[i]; k++) {
+            if (bytes.get(start[i] + k) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * To renumber the nodes of every message
+     *
+     * @param delta number added to every src and dest
+     */
+    public void shift(int delta) {
+        for (int i = 0; i < count; i++) {
+            src[i] += delta;
+            dest[i] += delta;
+        }
+    }
+
+    /**
+     * @return the messages as a list of Messages
+     */
+    public List<Message> toMessages() {
+        List<Message> ret = new ArrayList<Message>(count);
+        for (int i = 0; i < count; i++) {
+            ret.add(new Message(src[i], dest[i], getMessage(i)));
+        }
+        return ret;
+    }
+
+    private void grow() {
+        src = Arrays.copyOf(src, 2 * src.length);
+        dest = Arrays.copyOf(dest, 2 * dest.length);
+        start = Arrays.copyOf(start, 2 * start.length);
+        length = Arrays.copyOf(length, 2 * length.length);
+    }
+}
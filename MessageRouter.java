@@ -0,0 +1,252 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: MessageRouter.java
+ * description: To route every message over a state of the network and print its path.
+ */
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A MessageRouter routes the whole messages file in one batch for each state of
+ * the network. The messages are grouped by source and destination once, when
+ * it is made, so each distinct pair is resolved only once per state, by
+ * following next hops in the ForwardingTable, however many messages share it.
+ * The resolved "from <x> to <y>: hops ...; message: " part of each pair is
+ * encoded into one shared buffer, and the message text is copied straight out
+ * of the mapping of the messages file, so printing a message is two copies and
+ * no message is ever made into a Message or a String. (A text that is not
+ * plain ASCII is encoded once through the default charset instead, as a String
+ * of it would be printed.)
+ *
+ * Output is one "from <x> to <y>: hops ...; message: <message>" entry per
+ * message, each followed by a blank line, in the order of the messages file. The paths of the state before are kept, so printChanged
+ * can print only the messages whose path changed.
+ */
+class MessageRouter {
+    private final int numberOfMessages;
+    // distinct (source, destination) pairs, 0-based, sorted by source
+    private final int[] pairSrc;
+    private final int[] pairDest;
+    // pair of every message
+    private final int[] pairOf;
+    // source and destination arrays, and texts in the mapping
+    private final MessageFile messages;
+    // texts that are not plain ASCII, encoded (null if every text is)
+    private byte[][] encoded;
+    // "\n" and the line separator, which end each message
+    private final byte[] messageEnd;
+    // resolved pairs of the current state, pair p at pathStart[p]
+    private OutputBuffer paths = new OutputBuffer();
+    private int[] pathStart;
+    private int[] pathLength;
+    // and of the state before, swapped with them for each state
+    private OutputBuffer previousPaths = new OutputBuffer();
+    private int[] previousStart;
+    private int[] previousLength;
+    // for the stats
+    private long routed;
+    private int states;
+    private long nanos;
+
+    /**
+     * @param messages messages to route, 1-based like the routers keep them
+     */
+    public MessageRouter(MessageFile messages) {
+        this.messages = messages;
+        numberOfMessages = messages.getCount();
+        // sort the distinct pairs
+        long[] keys = new long[numberOfMessages];
+        for (int i = 0; i < numberOfMessages; i++) {
+            keys[i] = key(messages.getSrc(i) - 1, messages.getDest(i) - 1);
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        pairSrc = new int[count];
+        pairDest = new int[count];
+        for (int p = 0; p < count; p++) {
+            pairSrc[p] = (int) (sorted[p] >> 32);
+            pairDest[p] = (int) sorted[p];
+        }
+        pathStart = new int[count];
+        pathLength = new int[count];
+        previousStart = new int[count];
+        previousLength = new int[count];
+        pairOf = new int[numberOfMessages];
+        for (int i = 0; i < numberOfMessages; i++) {
+            pairOf[i] = Arrays.binarySearch(sorted, 0, count, keys[i]);
+            if (!messages.isAscii(i)) {
+                if (encoded == null) {
+                    encoded = new byte[numberOfMessages][];
+                }
+                encoded[i] = messages.getMessage(i).getBytes(Charset.defaultCharset());
+            }
+        }
+        messageEnd = ("\n" + System.lineSeparator()).getBytes(Charset.defaultCharset());
+    }
+
+    private static long key(int src, int dest) {
+        return ((long) src << 32) | (dest & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return number of distinct (source, destination) pairs
+     */
+    public int getNumberOfPairs() {
+        return pairSrc.length;
+    }
+
+    /**
+     * To route every message over one state of the network and print its path,
+     * each followed by a blank line
+     *
+     * @param out   buffer to print to
+     * @param table forwarding table of this state
+     */
+    public void print(OutputBuffer out, ForwardingTable table, int offset) {
+        long start = System.nanoTime();
+        resolve(table, offset);
+        for (int i = 0; i < numberOfMessages; i++) {
+            int p = pairOf[i];
+            out.print(paths, pathStart[p], pathLength[p]);
+            printText(out, i);
+            out.print(messageEnd);
+        }
+        long elapsed = System.nanoTime() - start;
+        Metrics.record(Metrics.MESSAGES, elapsed);
+        Metrics.count(Metrics.MESSAGES_ROUTED, numberOfMessages);
+        nanos += elapsed;
+        routed += numberOfMessages;
+        states++;
+    }
+
+    /**
+     * To route every message over one state of the network and print, as
+     * "<message number> from <x> to <y>: hops ...; message: <message>", only
+     * those whose path is not what it was in the state before. Messages are
+     * numbered from 1 in the order of the messages file.
+     *
+     * @param out   buffer to print to
+     * @param table forwarding table of this state
+     * @return number of messages printed
+     */
+    public int printChanged(OutputBuffer out, ForwardingTable table, int offset) {
+        long start = System.nanoTime();
+        resolve(table, offset);
+        int printed = 0;
+        for (int i = 0; i < numberOfMessages; i++) {
+            int p = pairOf[i];
+            if (pathLength[p] == previousLength[p]
+                    && paths.regionMatches(pathStart[p], previousPaths, previousStart[p], pathLength[p])) {
+                continue;
+            }
+            out.print(i + 1);
+            out.print(' ');
+            out.print(paths, pathStart[p], pathLength[p]);
+            // the text without the blank line
+            printText(out, i);
+            out.print('\n');
+            printed++;
+        }
+        long elapsed = System.nanoTime() - start;
+        Metrics.record(Metrics.MESSAGES, elapsed);
+        Metrics.count(Metrics.MESSAGES_ROUTED, numberOfMessages);
+        nanos += elapsed;
+        routed += numberOfMessages;
+        states++;
+        return printed;
+    }
+
+    private void printText(OutputBuffer out, int i) {
+        if (encoded != null && encoded[i] != null) {
+            out.print(encoded[i]);
+        } else {
+            messages.printMessage(out, i);
+        }
+    }
+
+    /**
+     * To resolve each pair once, keeping the paths of the state before
+     */
+    private void resolve(ForwardingTable table, int offset) {
+        OutputBuffer buffer = previousPaths;
+        previousPaths = paths;
+        paths = buffer;
+        int[] starts = previousStart;
+        previousStart = pathStart;
+        pathStart = starts;
+        int[] lengths = previousLength;
+        previousLength = pathLength;
+        pathLength = lengths;
+        paths.clear();
+        for (int p = 0; p < pairSrc.length; p++) {
+            pathStart[p] = paths.length();
+            appendPath(paths, table, pairSrc[p], pairDest[p], offset);
+            pathLength[p] = paths.length() - pathStart[p];
+        }
+    }
+
+    /**
+     * To append "from <x> to <y>: hops <hop1> <hop2> <...>; message: " for one
+     * pair, following next hops from its source. If they go round in a loop,
+     * which a table routed to the end never does, the destination is
+     * unreachable.
+     *
+     * @param out  in-memory buffer
+     * @param src  source router (0-based)
+     * @param dest destination router (0-based)
+     */
+    private static void appendPath(OutputBuffer out, ForwardingTable table, int src, int dest, int offset) {
+        appendEnds(out, src, dest, offset);
+        if (table.cost(src, dest) == -1) {
+            // destination cannot be reached from the message source
+            out.print(" unreachable; message: ");
+            return;
+        }
+        int hops = out.length();
+        out.print(' ');
+        out.print(src + 1 - (1 - offset));
+        int hop = table.nextHop(src, dest);
+        // a path visits each router once at most
+        for (int visited = 1; hop != dest; visited++) {
+            if (visited == table.getNumberOfNodes()) {
+                out.truncate(hops);
+                out.print(" unreachable; message: ");
+                return;
+            }
+            out.print(' ');
+            out.print(hop + 1 - (1 - offset));
+            hop = table.nextHop(hop, dest);
+        }
+        out.print(' ');
+        out.print(dest + 1 - (1 - offset));
+        out.print("; message: ");
+    }
+
+    /**
+     * To append "from <x> to <y>: hops"
+     */
+    private static void appendEnds(OutputBuffer out, int src, int dest, int offset) {
+        out.print("from ");
+        out.print(src + 1 - (1 - offset));
+        out.print(" to ");
+        out.print(dest + 1 - (1 - offset));
+        out.print(": hops");
+    }
+
+    /**
+     * @return messages routed, distinct pairs and messages per second so far
+     */
+    public String getStats() {
+        double seconds = nanos / 1e9;
+        return "routed " + routed + " messages over " + states + " states (" + pairSrc.length
+                + " distinct paths each) in " + String.format("%.3f", seconds) + " s, "
+                + (seconds > 0 ? Math.round(routed / seconds) : 0) + " messages/sec";
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: Metrics.java
+ * description: To time the stages of a run and write their histograms and counters for each epoch.
+ */
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Metrics times the stages of a run (parsing, each Dijkstra, building each
+ * forwarding table row, each distance-vector round, routing the messages of a
+ * state, each write to the output file, and each whole epoch) into a
+ * LatencyHistogram per stage, and keeps counters of the work done. A stage is
+ * timed as
+ *
+ * <pre>
+ * long begin = Metrics.begin();
+ * ...
+ * Metrics.end(Metrics.DIJKSTRA, begin);
+ * </pre>
+ *
+ * which is a field read and a compare when metrics are off.
+ *
+ * When on, every stage is also committed as a router.Stage JFR event, so a
+ * flight recording (java -XX:StartFlightRecording ...) lines the stages up
+ * with GC and the rest of the JVM. At the end of each epoch (the initial
+ * state, then each batch of changes) its histograms and counters are written
+ * to the metrics file, as JSON or, for a file ending in .csv, CSV, and added
+ * to the totals for the whole run, which are written last.
+ */
+class Metrics {
+    // stages
+    public static final int PARSE = 0;
+    public static final int DIJKSTRA = 1;
+    public static final int FORWARDING = 2;
+    public static final int DV_ROUND = 3;
+    public static final int MESSAGES = 4;
+    public static final int WRITE = 5;
+    public static final int EPOCH = 6;
+    private static final String[] STAGES = { "parse", "dijkstra", "forwarding", "dv_round", "messages", "write",
+            "epoch" };
+    // counters
+    public static final int CHANGES = 0;
+    public static final int LINKS_CHANGED = 1;
+    public static final int RELAXATIONS = 2;
+    public static final int MESSAGES_ROUTED = 3;
+    public static final int BYTES_WRITTEN = 4;
+    private static final String[] COUNTERS = { "changes", "links_changed", "relaxations", "messages_routed",
+            "bytes_written" };
+    // what begin returns when metrics are off
+    private static final long OFF = Long.MIN_VALUE;
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    private static volatile boolean enabled;
+    private static LatencyHistogram[] epochStages;
+    private static LatencyHistogram[] runStages;
+    private static AtomicLongArray epochCounters;
+    private static long[] runCounters;
+    private static int epoch;
+    private static long epochBegin;
+    private static PrintWriter out;
+    private static boolean csv;
+
+    /**
+     * The JFR event of one stage
+     */
+    @Name("router.Stage")
+    @Label("Routing Stage")
+    @Category("Router")
+    @Description("One stage of a lsrouter or dvrouter run")
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Epoch")
+        int epoch;
+
+        @Label("Time Taken")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    /**
+     * To turn metrics on
+     *
+     * @param router name of the router, written to the metrics file
+     * @param path   metrics file, CSV if it ends in .csv and JSON otherwise
+     */
+    public static void start(String router, String path) throws FileNotFoundException {
+        out = new PrintWriter(path);
+        csv = path.endsWith(".csv");
+        epochStages = new LatencyHistogram[STAGES.length];
+        runStages = new LatencyHistogram[STAGES.length];
+        for (int s = 0; s < STAGES.length; s++) {
+            epochStages[s] = new LatencyHistogram();
+            runStages[s] = new LatencyHistogram();
+        }
+        epochCounters = new AtomicLongArray(COUNTERS.length);
+        runCounters = new long[COUNTERS.length];
+        if (csv) {
+            out.println("epoch,name,count,total_ms,mean_us,p50_us,p90_us,p99_us,p999_us,max_us");
+        } else {
+            out.println("{\"router\": \"" + router + "\", \"epochs\": [");
+        }
+        epochBegin = System.nanoTime();
+        enabled = true;
+    }
+
+    /**
+     * @return start time of a stage, to give to end
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : OFF;
+    }
+
+    /**
+     * To time a stage
+     *
+     * @param stage PARSE, DIJKSTRA and so on
+     * @param begin what begin returned when the stage started
+     */
+    public static void end(int stage, long begin) {
+        if (begin != OFF) {
+            record(stage, System.nanoTime() - begin);
+        }
+    }
+
+    /**
+     * To count a stage timed some other way
+     *
+     * @param stage PARSE, DIJKSTRA and so on
+     * @param nanos how long it took
+     */
+    public static void record(int stage, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        epochStages[stage].record(nanos);
+        StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.stage = STAGES[stage];
+            event.epoch = epoch;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * To add to a counter
+     *
+     * @param counter CHANGES, RELAXATIONS and so on
+     */
+    public static void count(int counter, long n) {
+        if (enabled) {
+            epochCounters.addAndGet(counter, n);
+        }
+    }
+
+    /**
+     * To end the epoch whose state was just printed, writing its metrics
+     */
+    public static void endEpoch() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        epochStages[EPOCH].record(now - epochBegin);
+        epochBegin = now;
+        write(String.valueOf(epoch), epoch > 0);
+        for (int s = 0; s < STAGES.length; s++) {
+            runStages[s].add(epochStages[s]);
+            epochStages[s].reset();
+        }
+        for (int c = 0; c < COUNTERS.length; c++) {
+            runCounters[c] += epochCounters.getAndSet(c, 0);
+        }
+        epoch++;
+    }
+
+    /**
+     * To write the totals of the run and close the metrics file
+     */
+    public static void finish() {
+        if (!enabled) {
+            return;
+        }
+        enabled = false;
+        // with what came after the last epoch, e.g. the last write
+        for (int s = 0; s < STAGES.length; s++) {
+            runStages[s].add(epochStages[s]);
+        }
+        epochStages = runStages;
+        for (int c = 0; c < COUNTERS.length; c++) {
+            epochCounters.addAndGet(c, runCounters[c]);
+        }
+        if (!csv) {
+            out.println();
+            out.println("],");
+        }
+        write("total", false);
+        if (!csv) {
+            out.println("}");
+        }
+        out.close();
+    }
+
+    /**
+     * To write the stages and counters being kept in epochStages and
+     * epochCounters
+     *
+     * @param name  epoch number, or "total"
+     * @param comma true if another epoch was written before this one
+     */
+    private static void write(String name, boolean comma) {
+        if (csv) {
+            for (int s = 0; s < STAGES.length; s++) {
+                LatencyHistogram h = epochStages[s];
+                StringBuilder line = new StringBuilder();
+                line.append(name).append(',').append(STAGES[s]).append(',').append(h.getCount()).append(',')
+                        .append(millis(h.getTotal())).append(',').append(micros(mean(h)));
+                for (double p : PERCENTILES) {
+                    line.append(',').append(micros(h.getValueAtPercentile(p)));
+                }
+                out.println(line.append(',').append(micros(h.getMax())));
+            }
+            for (int c = 0; c < COUNTERS.length; c++) {
+                out.println(name + "," + COUNTERS[c] + "," + epochCounters.get(c) + ",,,,,,,");
+            }
+            return;
+        }
+        StringBuilder json = new StringBuilder();
+        if (comma) {
+            json.append(",\n");
+        }
+        json.append(name.equals("total") ? "\"total\": {" : "{\"epoch\": " + name + ", ").append("\"stages\": {");
+        for (int s = 0; s < STAGES.length; s++) {
+            LatencyHistogram h = epochStages[s];
+            json.append(s == 0 ? "" : ", ").append('"').append(STAGES[s]).append("\": {\"count\": ")
+                    .append(h.getCount()).append(", \"total_ms\": ").append(millis(h.getTotal()))
+                    .append(", \"mean_us\": ").append(micros(mean(h)));
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                json.append(", \"").append(PERCENTILE_NAMES[p]).append("_us\": ")
+                        .append(micros(h.getValueAtPercentile(PERCENTILES[p])));
+            }
+            json.append(", \"max_us\": ").append(micros(h.getMax())).append('}');
+        }
+        json.append("}, \"counters\": {");
+        for (int c = 0; c < COUNTERS.length; c++) {
+            json.append(c == 0 ? "" : ", ").append('"').append(COUNTERS[c]).append("\": ").append(epochCounters.get(c));
+        }
+        out.print(json.append("}}"));
+        if (name.equals("total")) {
+            out.println();
+        }
+    }
+
+    private static long mean(LatencyHistogram h) {
+        return h.getCount() == 0 ? 0 : h.getTotal() / h.getCount();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e3);
+    }
+}
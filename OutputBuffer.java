@@ -0,0 +1,269 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: OutputBuffer.java
+ * description: To encode the routers' output into a reusable byte buffer in front of the output file.
+ */
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * An OutputBuffer takes the place of a PrintWriter for the routers' output. It
+ * encodes numbers and text straight into one large byte array, which is
+ * reused, and writes the array to a FileChannel each time it fills up. Nothing
+ * is allocated per line and nothing is copied more than once.
+ *
+ * Without a file it is an in-memory buffer that grows as needed, which is how
+ * parallel workers build their tables before they are written out in order.
+ * Lines end and text is encoded the same way PrintWriter does it, so the
+ * output is byte for byte what the routers have always written.
+ */
+class OutputBuffer {
+    // size of the buffer in front of a file
+    private static final int FILE_BUFFER_SIZE = 1 << 22;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(Charset.defaultCharset());
+
+    private final FileChannel channel;
+    private final FileOutputStream stream;
+    private byte[] bytes;
+    private int length;
+    // digits of a number, written backwards
+    private final byte[] digits = new byte[20];
+
+    /**
+     * An in-memory buffer
+     */
+    public OutputBuffer() {
+        channel = null;
+        stream = null;
+        bytes = new byte[1024];
+    }
+
+    /**
+     * A buffer in front of a file, which is created or emptied
+     *
+     * @param path path of the file to write
+     */
+    public OutputBuffer(String path) throws FileNotFoundException {
+        stream = new FileOutputStream(path);
+        channel = stream.getChannel();
+        bytes = new byte[FILE_BUFFER_SIZE];
+    }
+
+    public void print(int value) {
+        print((long) value);
+    }
+
+    public void print(long value) {
+        ensure(digits.length);
+        if (value < 0) {
+            bytes[length++] = '-';
+        }
+        // work with the negative value so Long.MIN_VALUE fits
+        long rest = value < 0 ? value : -value;
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        while (count > 0) {
+            bytes[length++] = digits[--count];
+        }
+    }
+
+    public void print(char c) {
+        if (c >= 0x80) {
+            print(String.valueOf(c));
+            return;
+        }
+        ensure(1);
+        bytes[length++] = (byte) c;
+    }
+
+    public void print(String s) {
+        int n = s.length();
+        ensure(n);
+        if (n > bytes.length - length) {
+            // bigger than the whole buffer
+            print(s.getBytes(Charset.defaultCharset()));
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // not plain ASCII, leave it to the charset
+                print(s.getBytes(Charset.defaultCharset()));
+                return;
+            }
+            bytes[length + i] = (byte) c;
+        }
+        length += n;
+    }
+
+    public void print(byte[] b) {
+        print(b, 0, b.length);
+    }
+
+    public void print(byte[] b, int offset, int count) {
+        ensure(count);
+        if (count > bytes.length - length) {
+            // bigger than the whole buffer, write it directly
+            write(ByteBuffer.wrap(b, offset, count));
+            return;
+        }
+        System.arraycopy(b, offset, bytes, length, count);
+        length += count;
+    }
+
+    /**
+     * To append count bytes of a mapped file, from position
+     */
+    public void print(MappedFile file, long position, int count) {
+        ensure(count);
+        while (count > 0) {
+            if (length == bytes.length) {
+                // bigger than the whole buffer, so written a buffer at a time
+                flush();
+            }
+            int piece = Math.min(count, bytes.length - length);
+            file.get(position, bytes, length, piece);
+            length += piece;
+            position += piece;
+            count -= piece;
+        }
+    }
+
+    /**
+     * To append everything held by another in-memory buffer
+     */
+    public void print(OutputBuffer other) {
+        print(other.bytes, 0, other.length);
+    }
+
+    /**
+     * To append count bytes held by another in-memory buffer, from offset
+     */
+    public void print(OutputBuffer other, int offset, int count) {
+        print(other.bytes, offset, count);
+    }
+
+    /**
+     * @return true if count bytes held from offset are the same as count bytes
+     *         held by another in-memory buffer from otherOffset
+     */
+    public boolean regionMatches(int offset, OutputBuffer other, int otherOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (bytes[offset + i] != other.bytes[otherOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void println() {
+        print(LINE_SEPARATOR);
+    }
+
+    public void println(String s) {
+        print(s);
+        println();
+    }
+
+    /**
+     * @return number of bytes held and not yet written
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * To drop everything held and not yet written
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * To drop what was printed after the first length bytes, which must not
+     * have been written out yet
+     */
+    public void truncate(int length) {
+        this.length = length;
+    }
+
+    /**
+     * @return copy of the bytes held and not yet written
+     */
+    public byte[] toByteArray() {
+        byte[] copy = new byte[length];
+        System.arraycopy(bytes, 0, copy, 0, length);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, Charset.defaultCharset());
+    }
+
+    /**
+     * To write everything held to the file
+     */
+    public void flush() {
+        if (channel != null && length > 0) {
+            write(ByteBuffer.wrap(bytes, 0, length));
+            length = 0;
+        }
+    }
+
+    /**
+     * To write everything held and close the file
+     */
+    public void close() {
+        flush();
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * To make room for count more bytes, by writing the buffer out in front of a
+     * file or by growing it in memory
+     */
+    private void ensure(int count) {
+        if (count <= bytes.length - length) {
+            return;
+        }
+        if (channel != null) {
+            flush();
+            return;
+        }
+        int capacity = bytes.length;
+        while (capacity - length < count) {
+            capacity *= 2;
+        }
+        byte[] grown = new byte[capacity];
+        System.arraycopy(bytes, 0, grown, 0, length);
+        bytes = grown;
+    }
+
+    private void write(ByteBuffer buffer) {
+        long begin = Metrics.begin();
+        Metrics.count(Metrics.BYTES_WRITTEN, buffer.remaining());
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Metrics.end(Metrics.WRITE, begin);
+    }
+}
@@ -0,0 +1,399 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: PointToPointEngine.java
+ * description: To find the least-cost path between two routers by bidirectional Dijkstra or ALT.
+ */
+/**
+ * A PointToPointEngine finds the least-cost path between two nodes without a
+ * whole least-cost tree: it runs Dijkstra forward from the source and backward
+ * from the target at the same time, always advancing the side with the lower
+ * key, and stops once the two keys add up to more than the cheapest path seen
+ * so far. With landmarks (ALT) both searches are A* searches instead, guided by
+ * the lower bounds the triangle inequality gives from the distances to a few
+ * far apart nodes, so they head for each other rather than growing balls.
+ *
+ * The path is the one DijkstraEngine's tree holds, not just any least-cost
+ * path: every node is reached through the lowest-numbered neighbour u with
+ * d(s, u) + cost(u, v) == d(s, v). Walking back from the target needs the exact
+ * d(s, u) of every such u, and the searches only give it for the nodes they
+ * settled. With the strict stopping rule every least-cost path is a run of
+ * nodes the forward search settled, then a link, then a run the backward search
+ * settled, so
+ *
+ * <pre>
+ * d(s, u) = forward cost of u            if the forward search settled u
+ *         = cost - backward cost of u    if u is on a least-cost path
+ * </pre>
+ *
+ * and a sweep from the links where the two searches meet marks the
+ * backward-settled nodes that are on a least-cost path. Nodes are 0-based here,
+ * like the graph, and every state the engine touches is reset after a query so
+ * the next one costs only what it explores.
+ */
+class PointToPointEngine implements ShortestPath {
+    // cost of a path that does not exist
+    public static final int INFINITY = DijkstraEngine.INFINITY;
+
+    // what is known about a node
+    private static final int REACHED_FORWARD = 1;
+    private static final int SETTLED_FORWARD = 2;
+    private static final int REACHED_BACKWARD = 4;
+    private static final int SETTLED_BACKWARD = 8;
+    private static final int ON_PATH = 16;
+    private static final int POTENTIAL = 32;
+
+    private final int[] forwardCost;
+    private final int[] backwardCost;
+    // twice the average of the two A* potentials, kept while it is used
+    private final int[] potential;
+    private final byte[] state;
+    private final IndexedMinHeap forward;
+    private final IndexedMinHeap backward;
+    // nodes with a state, to reset
+    private final int[] touched;
+    private int touchedCount;
+    // work list of the sweep
+    private final int[] stack;
+    // path from the source to the target
+    private final int[] path;
+    private int pathLength;
+    // landmarkCost[l][v] is the cost from landmark l to v
+    private int[][] landmarkCost = new int[0][];
+    private int source;
+    private int target;
+    private int cost;
+    private int settled;
+
+    public PointToPointEngine(int numberOfNodes) {
+        forwardCost = new int[numberOfNodes];
+        backwardCost = new int[numberOfNodes];
+        potential = new int[numberOfNodes];
+        state = new byte[numberOfNodes];
+        forward = new IndexedMinHeap(numberOfNodes);
+        backward = new IndexedMinHeap(numberOfNodes);
+        touched = new int[numberOfNodes];
+        stack = new int[numberOfNodes];
+        path = new int[numberOfNodes];
+    }
+
+    /**
+     * To pick landmarks for ALT, each the node farthest from the ones already
+     * picked, and keep the costs from them to every node. They stay valid until
+     * the network changes; call this again (or with 0 to go back to plain
+     * bidirectional Dijkstra) after it does.
+     *
+     * @param graph network topology
+     * @param count number of landmarks
+     */
+    public void setLandmarks(CsrGraph graph, int count) {
+        int n = state.length;
+        count = Math.min(count, n);
+        landmarkCost = new int[count][];
+        if (count == 0) {
+            return;
+        }
+        DijkstraEngine engine = new DijkstraEngine(n);
+        // least cost from any landmark so far, the next landmark having the most
+        int[] nearest = new int[n];
+        engine.run(graph, 0);
+        int next = farthest(engine.getDistances(), null);
+        for (int l = 0; l < count; l++) {
+            engine.run(graph, next);
+            landmarkCost[l] = engine.getDistances().clone();
+            for (int v = 0; v < n; v++) {
+                nearest[v] = l == 0 ? landmarkCost[l][v] : Math.min(nearest[v], landmarkCost[l][v]);
+            }
+            next = farthest(nearest, landmarkCost);
+        }
+    }
+
+    /**
+     * @param cost    cost of every node
+     * @param skipped landmarks so far, never picked again, or null
+     * @return reachable node of greatest cost, the lowest-numbered on ties
+     */
+    private static int farthest(int[] cost, int[][] skipped) {
+        int best = 0;
+        for (int v = 0; v < cost.length; v++) {
+            if (cost[v] != INFINITY && (cost[best] == INFINITY || cost[v] > cost[best])) {
+                best = v;
+            }
+        }
+        if (skipped != null && cost[best] == 0) {
+            // every node reachable is a landmark already, so try another part
+            for (int v = 0; v < cost.length; v++) {
+                if (cost[v] == INFINITY) {
+                    return v;
+                }
+            }
+        }
+        return best;
+    }
+
+    public int getLandmarkCount() {
+        return landmarkCost.length;
+    }
+
+    /**
+     * Bidirectional Dijkstra (or ALT). Finds the least-cost path from source to
+     * target that following DijkstraEngine's predecessors would give.
+     *
+     * @param graph  network topology
+     * @param source source node (0-based)
+     * @param target target node (0-based)
+     * @return cost of the path, INFINITY if target cannot be reached
+     */
+    public int run(CsrGraph graph, int source, int target) {
+        reset();
+        this.source = source;
+        this.target = target;
+        cost = INFINITY;
+        pathLength = 0;
+        settled = 0;
+        if (source == target) {
+            cost = 0;
+            path[pathLength++] = source;
+            return cost;
+        }
+        // the keys are twice the costs when there are landmarks, so the average
+        // of the two potentials is a whole number
+        int scale = landmarkCost.length == 0 ? 1 : 2;
+        reach(source, REACHED_FORWARD);
+        forwardCost[source] = 0;
+        forward.insertOrDecrease(source, potentialOf(source));
+        reach(target, REACHED_BACKWARD);
+        backwardCost[target] = 0;
+        backward.insertOrDecrease(target, -potentialOf(target));
+        long best = Long.MAX_VALUE;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            // strict, so every least-cost path is settled from one end or the other
+            if (best != Long.MAX_VALUE && (long) forward.peekKey() + backward.peekKey() > best * scale) {
+                break;
+            }
+            if (forward.peekKey() <= backward.peekKey()) {
+                best = Math.min(best, settle(graph, forward.poll(), true, scale));
+            } else {
+                best = Math.min(best, settle(graph, backward.poll(), false, scale));
+            }
+        }
+        if (best != Long.MAX_VALUE) {
+            cost = (int) best;
+            markPath(graph);
+            walkPath(graph);
+        }
+        return cost;
+    }
+
+    /**
+     * To settle a node on one side and relax its links
+     *
+     * @param u         node to settle
+     * @param isForward true for the forward search, false for the backward one
+     * @param scale     what the costs are multiplied by in the keys
+     * @return cost of the cheapest path through one of u's links found, or
+     *         Long.MAX_VALUE if none
+     */
+    private long settle(CsrGraph graph, int u, boolean isForward, int scale) {
+        settled++;
+        int[] own = isForward ? forwardCost : backwardCost;
+        int[] other = isForward ? backwardCost : forwardCost;
+        int settledFlag = isForward ? SETTLED_FORWARD : SETTLED_BACKWARD;
+        int reachedFlag = isForward ? REACHED_FORWARD : REACHED_BACKWARD;
+        int otherReached = isForward ? REACHED_BACKWARD : REACHED_FORWARD;
+        IndexedMinHeap heap = isForward ? forward : backward;
+        state[u] |= settledFlag;
+        long best = Long.MAX_VALUE;
+        int cu = own[u];
+        for (int e = graph.begin(u); e < graph.end(u); e++) {
+            int v = graph.target(e);
+            int cv = cu + graph.cost(e);
+            if ((state[v] & otherReached) != 0) {
+                best = Math.min(best, (long) cv + other[v]);
+            }
+            if ((state[v] & settledFlag) != 0) {
+                continue;
+            }
+            if ((state[v] & reachedFlag) == 0 || cv < own[v]) {
+                reach(v, reachedFlag);
+                own[v] = cv;
+                int p = potentialOf(v);
+                heap.insertOrDecrease(v, scale * cv + (isForward ? p : -p));
+            }
+        }
+        return best;
+    }
+
+    private void reach(int v, int flag) {
+        if (state[v] == 0) {
+            touched[touchedCount++] = v;
+        }
+        state[v] |= flag;
+    }
+
+    /**
+     * @return twice the average potential of v: a lower bound on its cost to
+     *         the target less a lower bound on the cost to it from the source
+     */
+    private int potentialOf(int v) {
+        if (landmarkCost.length == 0) {
+            return 0;
+        }
+        if ((state[v] & POTENTIAL) == 0) {
+            potential[v] = bound(v, target) - bound(source, v);
+            state[v] |= POTENTIAL;
+        }
+        return potential[v];
+    }
+
+    /**
+     * @return lower bound on the cost between a and b from the triangle
+     *         inequality at each landmark that reaches both
+     */
+    private int bound(int a, int b) {
+        int bound = 0;
+        for (int[] c : landmarkCost) {
+            if (c[a] != INFINITY && c[b] != INFINITY) {
+                bound = Math.max(bound, Math.abs(c[a] - c[b]));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * To mark the nodes only the backward search settled that are on a
+     * least-cost path: those a link from a forward-settled node leads to at
+     * the full cost, and from them onwards every node whose backward cost is
+     * one link less.
+     */
+    private void markPath(CsrGraph graph) {
+        int top = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int x = touched[i];
+            if ((state[x] & SETTLED_FORWARD) == 0) {
+                continue;
+            }
+            for (int e = graph.begin(x); e < graph.end(x); e++) {
+                int y = graph.target(e);
+                if (isBackwardOnly(y) && (long) forwardCost[x] + graph.cost(e) + backwardCost[y] == cost) {
+                    state[y] |= ON_PATH;
+                    stack[top++] = y;
+                }
+            }
+        }
+        while (top > 0) {
+            int y = stack[--top];
+            for (int e = graph.begin(y); e < graph.end(y); e++) {
+                int z = graph.target(e);
+                if (isBackwardOnly(z) && backwardCost[y] == graph.cost(e) + backwardCost[z]) {
+                    state[z] |= ON_PATH;
+                    stack[top++] = z;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if only the backward search settled v, and it is not marked
+     *         yet
+     */
+    private boolean isBackwardOnly(int v) {
+        return (state[v] & (SETTLED_FORWARD | SETTLED_BACKWARD | ON_PATH)) == SETTLED_BACKWARD;
+    }
+
+    /**
+     * @return exact cost from the source to v, a node on a least-cost path
+     */
+    private int costFromSource(int v) {
+        return (state[v] & SETTLED_FORWARD) != 0 ? forwardCost[v] : cost - backwardCost[v];
+    }
+
+    /**
+     * To walk back from the target through the lowest-numbered predecessor of
+     * each node, the way DijkstraEngine breaks ties
+     */
+    private void walkPath(CsrGraph graph) {
+        int v = target;
+        path[pathLength++] = v;
+        while (v != source) {
+            int dv = costFromSource(v);
+            int pred = -1;
+            for (int e = graph.begin(v); e < graph.end(v); e++) {
+                int u = graph.target(e);
+                boolean known = (state[u] & (SETTLED_FORWARD | ON_PATH)) != 0;
+                if (known && (pred == -1 || u < pred) && costFromSource(u) + graph.cost(e) == dv) {
+                    pred = u;
+                }
+            }
+            if (pred == -1) {
+                throw new IllegalStateException("no predecessor of " + v + " on a least-cost path");
+            }
+            v = pred;
+            path[pathLength++] = v;
+        }
+        // source first
+        for (int i = 0, j = pathLength - 1; i < j; i++, j--) {
+            int swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+    }
+
+    /**
+     * To forget the last query, touching only what it touched
+     */
+    private void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            state[touched[i]] = 0;
+        }
+        touchedCount = 0;
+        forward.clear();
+        backward.clear();
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return cost of the last path, INFINITY if there was none
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    public boolean isReachable() {
+        return cost != INFINITY;
+    }
+
+    /**
+     * @return number of nodes on the path, source and target included, 0 if
+     *         there is none
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * @param i position on the path, 0 being the source
+     * @return node at that position
+     */
+    public int getPathNode(int i) {
+        return path[i];
+    }
+
+    /**
+     * @return number of nodes settled by the last query, counting each side
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    public int getNumberOfNodes() {
+        return state.length;
+    }
+}
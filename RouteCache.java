@@ -0,0 +1,153 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: RouteCache.java
+ * description: To keep least-cost trees by source router across changes, within a memory budget.
+ */
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A RouteCache keeps least-cost trees by source router, so a router whose tree
+ * a change cannot alter gets its forwarding table without a run of Dijkstra
+ * (and a message from it is routed by a lookup). It holds as many trees as fit
+ * in a memory budget and drops the least recently used one when it is full.
+ *
+ * A change only drops the trees it can actually alter: a dearer or removed
+ * link only matters to trees that use it, and a cheaper or new link only
+ * matters to trees where it brings one of its ends closer (or ties, which may
+ * change the lowest-numbered predecessor). Every method is synchronized so
+ * parallel workers can share one cache.
+ */
+class RouteCache {
+    /**
+     * A cached tree, 0-based like DijkstraEngine
+     */
+    static class Tree {
+        private final int[] dist;
+        private final int[] pred;
+
+        Tree(int[] dist, int[] pred) {
+            this.dist = dist;
+            this.pred = pred;
+        }
+
+        public int[] getDistances() {
+            return dist;
+        }
+
+        public int[] getPredecessors() {
+            return pred;
+        }
+    }
+
+    private final long budgetBytes;
+    private long usedBytes;
+    // in least recently used first order
+    private final LinkedHashMap<Integer, Tree> trees = new LinkedHashMap<Integer, Tree>(16, 0.75f, true);
+    private long hits, misses, invalidated, evicted;
+
+    /**
+     * @param budgetBytes most memory the cached trees may take
+     */
+    public RouteCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * @param source source router (0-based)
+     * @return cached tree of source, or null if there is none
+     */
+    public synchronized Tree get(int source) {
+        Tree tree = trees.get(source);
+        if (tree == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return tree;
+    }
+
+    /**
+     * To cache a copy of the tree just computed by an engine
+     *
+     * @param engine engine holding the tree of engine.getSource()
+     */
+    public void put(DijkstraEngine engine) {
+        put(engine.getSource(), engine.getDistances(), engine.getPredecessors());
+    }
+
+    /**
+     * To cache a copy of a tree
+     *
+     * @param source source router (0-based)
+     * @param dist   cost to every node, DijkstraEngine.INFINITY if unreachable
+     * @param pred   node every node is reached through
+     */
+    public synchronized void put(int source, int[] dist, int[] pred) {
+        long size = sizeOf(dist.length);
+        if (size > budgetBytes) {
+            return;
+        }
+        Tree old = trees.remove(source);
+        if (old != null) {
+            usedBytes -= sizeOf(old.dist.length);
+        }
+        while (usedBytes + size > budgetBytes) {
+            Iterator<Map.Entry<Integer, Tree>> eldest = trees.entrySet().iterator();
+            usedBytes -= sizeOf(eldest.next().getValue().dist.length);
+            eldest.remove();
+            evicted++;
+        }
+        trees.put(source, new Tree(dist.clone(), pred.clone()));
+        usedBytes += size;
+    }
+
+    /**
+     * To drop every cached tree a change to the link between u and v can alter
+     *
+     * @param u       one end of the link (0-based)
+     * @param v       other end of the link (0-based)
+     * @param oldCost cost before the change, 0 if there was no link
+     * @param newCost cost after the change, 0 if the link was removed
+     */
+    public synchronized void applyChange(int u, int v, int oldCost, int newCost) {
+        if (oldCost == newCost) {
+            return;
+        }
+        boolean cheaper = oldCost == 0 || (newCost != 0 && newCost < oldCost);
+        Iterator<Tree> it = trees.values().iterator();
+        while (it.hasNext()) {
+            Tree tree = it.next();
+            int[] d = tree.dist;
+            boolean stale;
+            if (cheaper) {
+                stale = (d[u] != DijkstraEngine.INFINITY && d[u] + newCost <= d[v])
+                        || (d[v] != DijkstraEngine.INFINITY && d[v] + newCost <= d[u]);
+            } else {
+                stale = tree.pred[v] == u || tree.pred[u] == v;
+            }
+            if (stale) {
+                usedBytes -= sizeOf(d.length);
+                it.remove();
+                invalidated++;
+            }
+        }
+    }
+
+    /**
+     * @return one line of hit, miss and invalidation counts
+     */
+    public synchronized String getStats() {
+        return "route cache: " + trees.size() + " trees, " + hits + " hits, " + misses + " misses, " + invalidated
+                + " invalidated, " + evicted + " evicted";
+    }
+
+    /**
+     * @return bytes a tree of numberOfNodes nodes takes, arrays and headers
+     */
+    private static long sizeOf(int numberOfNodes) {
+        return 8L * numberOfNodes + 64;
+    }
+}
@@ -0,0 +1,578 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: RouterDaemon.java
+ * description: To serve forwarding table queries and take link changes over a socket after the input files.
+ */
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A RouterDaemon keeps a router's network and forwarding tables in memory
+ * once the input files are done, and serves them on a loopback TCP port or a
+ * Unix-domain socket. Each connection sends one command per line and gets one
+ * line back:
+ *
+ * <pre>
+ * nexthop <src> <dest>       <next hop> <cost>
+ * cost <src> <dest>          <cost>, -1 if dest cannot be reached
+ * path <src> <dest>          hops <src> ... <dest>, or unreachable
+ * change <src> <dest> <cost> queued <number of the change>, routed later
+ * sync                       version <changes routed>, once every change
+ *                            sent before it is routed
+ * version                    version <changes routed>
+ * stats                      query latency and update throughput
+ * quit                       closes the connection
+ * shutdown                   stops the daemon
+ * </pre>
+ *
+ * Routers are numbered as in the input files, and errors are answered with a
+ * line starting "error", such as a router that is not in the network or a
+ * change from a router to itself. Given PathQueries, cost and path are answered from them
+ * instead of the tables.
+ *
+ * Changes are routed in the background by one updater thread, which takes
+ * every change queued since its last batch, coalesces them as ChangeBatches
+ * does, and has the router route the network again into the spare of two
+ * forwarding tables. The spare is then published and the other table becomes
+ * the spare, so a query reads one whole state, never one being built, and
+ * never waits for an update. Each table counts the queries reading it, and the
+ * updater only writes the spare once the queries that took it before it was
+ * replaced are done, which takes no longer than a query.
+ *
+ * PathQueries get each batch of changes from the updater once the new table is
+ * routed, just before it is published, and one query or batch at a time.
+ *
+ * If routing a batch fails, the error is reported and the daemon stops, as
+ * the network may be left between two states.
+ */
+class RouterDaemon {
+    /**
+     * How the router routes the network again after a batch of changes
+     */
+    interface Router {
+        /**
+         * @param changes coalesced changes, 1-based, to apply to the network
+         * @param table   to write the forwarding table of the new state to, which
+         *                no query is reading
+         */
+        void apply(LinkFile changes, ForwardingTable table);
+    }
+
+    /**
+     * Answers cost and path queries without the forwarding tables, from a
+     * structure of its own kept up to date with the network
+     */
+    interface PathQueries {
+        /**
+         * @param changes coalesced changes, 1-based, already made to the
+         *                network
+         */
+        void apply(LinkFile changes);
+
+        /**
+         * @return cost from src to dest (0-based), -1 if dest cannot be reached
+         */
+        int cost(int src, int dest);
+
+        /**
+         * @return least-cost path from src to dest (0-based), read before the
+         *         next query
+         */
+        ShortestPath path(int src, int dest);
+    }
+
+    private final CsrGraph graph;
+    private final int offset;
+    private final int numberOfNodes;
+    private final Router router;
+    // answers cost and path instead of the tables (null if none)
+    private PathQueries pathQueries;
+    // the two forwarding tables, the last state routed being tables[current]
+    private final ForwardingTable[] tables;
+    private volatile int current;
+    // queries reading each table
+    private final AtomicIntegerArray readers = new AtomicIntegerArray(2);
+    // changes in the last state routed
+    private volatile long version;
+    private volatile boolean failed;
+
+    // changes received and not yet taken by the updater, 1-based
+    private final Object lock = new Object();
+    private int[] pendingSrc = new int[64];
+    private int[] pendingDest = new int[64];
+    private int[] pendingCost = new int[64];
+    private int pendingCount;
+    private long received;
+    private volatile boolean running = true;
+
+    private ServerSocketChannel server;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    // for the stats
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+    private final AtomicLong queries = new AtomicLong();
+    private long batches;
+    private long routeNanos;
+
+    /**
+     * @param graph   network, only changed by the router from now on
+     * @param offset  minimum node number, which is node 0
+     * @param initial forwarding table of the network as it is
+     * @param spare   table of the same size and storage, for the next state
+     * @param router  routes the network again after a batch of changes
+     */
+    public RouterDaemon(CsrGraph graph, int offset, ForwardingTable initial, ForwardingTable spare,
+            Router router) {
+        this.graph = graph;
+        this.offset = offset;
+        this.router = router;
+        numberOfNodes = graph.getNumberOfNodes();
+        tables = new ForwardingTable[] { initial, spare };
+    }
+
+    /**
+     * To answer cost and path queries from them instead of the tables, set
+     * before serve
+     */
+    public void setPathQueries(PathQueries pathQueries) {
+        this.pathQueries = pathQueries;
+    }
+
+    /**
+     * @return true if routing a batch of changes failed, which stopped the
+     *         daemon
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * To serve until a shutdown command
+     *
+     * @param address port on the loopback interface (0 for any free one), or
+     *                unix:PATH for a Unix-domain socket
+     */
+    public void serve(String address) throws IOException {
+        String unixPath = null;
+        if (address.startsWith("unix:")) {
+            unixPath = address.substring("unix:".length());
+            // left by a daemon that did not stop cleanly
+            if (!deleteSocket(unixPath)) {
+                throw new IOException(unixPath + " exists and is not a socket");
+            }
+            server = openUnix(unixPath);
+        } else {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address)));
+        }
+        AlgorithmUtils.p("serving " + numberOfNodes + " routers on " + server.getLocalAddress());
+        Thread updater = new Thread(new Runnable() {
+            public void run() {
+                update();
+            }
+        }, "updater");
+        updater.start();
+        ExecutorService handlers = Executors.newCachedThreadPool();
+        try {
+            while (running) {
+                final SocketChannel connection;
+                try {
+                    connection = server.accept();
+                } catch (ClosedChannelException e) {
+                    // shut down
+                    break;
+                }
+                connections.add(connection);
+                handlers.execute(new Runnable() {
+                    public void run() {
+                        handle(connection);
+                    }
+                });
+            }
+        } finally {
+            stop();
+            for (SocketChannel connection : connections) {
+                connection.close();
+            }
+            handlers.shutdown();
+            try {
+                updater.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (unixPath != null) {
+                deleteSocket(unixPath);
+            }
+        }
+    }
+
+    /**
+     * To delete a Unix-domain socket file, and nothing else
+     *
+     * @return false if there is a file at path that is not a socket
+     */
+    private static boolean deleteSocket(String path) throws IOException {
+        Path file = Paths.get(path);
+        if (!Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+            return true;
+        }
+        boolean socket;
+        try {
+            int mode = (Integer) Files.getAttribute(file, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            socket = (mode & 0170000) == 0140000;
+        } catch (UnsupportedOperationException e) {
+            // no unix view, where a socket is neither a file, a directory nor a link
+            socket = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+        }
+        if (socket) {
+            Files.delete(file);
+        }
+        return socket;
+    }
+
+    /**
+     * To open a Unix-domain server socket, found at run time so this still
+     * builds and runs on Java before 16, where there are none
+     */
+    private static ServerSocketChannel openUnix(String path) throws IOException {
+        try {
+            ProtocolFamily unix = StandardProtocolFamily.valueOf("UNIX");
+            Method open = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            Method of = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+            ServerSocketChannel channel = (ServerSocketChannel) open.invoke(null, unix);
+            channel.bind((SocketAddress) of.invoke(null, path));
+            return channel;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unix-domain sockets need Java 16 or later", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unix-domain sockets need Java 16 or later", e);
+        }
+    }
+
+    private void stop() {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The updater: routes every batch of changes queued while the last one was
+     * routed
+     */
+    private void update() {
+        while (true) {
+            LinkFile changes;
+            synchronized (lock) {
+                while (running && pendingCount == 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                changes = new LinkFile(pendingCount, Arrays.copyOf(pendingSrc, pendingCount),
+                        Arrays.copyOf(pendingDest, pendingCount), Arrays.copyOf(pendingCost, pendingCount));
+                pendingCount = 0;
+            }
+            long begin = System.nanoTime();
+            int next = current;
+            try {
+                LinkFile epoch = new ChangeBatches(changes, changes.getCount(), 0).coalesce(0, graph);
+                if (epoch.getCount() > 0) {
+                    next = 1 - current;
+                    // queries that took the spare before it was replaced
+                    while (readers.get(next) != 0) {
+                        Thread.yield();
+                    }
+                    router.apply(epoch, tables[next]);
+                    if (pathQueries != null) {
+                        synchronized (pathQueries) {
+                            pathQueries.apply(epoch);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                AlgorithmUtils.p("error routing changes " + (version + 1) + " to " + (version + changes.getCount())
+                        + ", stopping: " + e);
+                failed = true;
+                stop();
+                return;
+            }
+            synchronized (lock) {
+                routeNanos += System.nanoTime() - begin;
+                batches++;
+                current = next;
+                version += changes.getCount();
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * To take the table of the last state routed for a query, which must
+     * release it
+     *
+     * @return which table
+     */
+    private int acquire() {
+        while (true) {
+            int t = current;
+            readers.incrementAndGet(t);
+            // still the last state, so the updater will wait for this query
+            if (t == current) {
+                return t;
+            }
+            readers.decrementAndGet(t);
+        }
+    }
+
+    private void release(int t) {
+        readers.decrementAndGet(t);
+    }
+
+    /**
+     * To answer the commands of one connection until it is closed
+     */
+    private void handle(SocketChannel connection) {
+        try {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(connection), Charset.defaultCharset()));
+            Writer out = new BufferedWriter(
+                    new OutputStreamWriter(Channels.newOutputStream(connection), Charset.defaultCharset()));
+            String line;
+            while ((line = in.readLine()) != null) {
+                long begin = System.nanoTime();
+                String[] words = line.trim().split(" +");
+                if (words[0].equals("quit")) {
+                    break;
+                } else if (words[0].equals("shutdown")) {
+                    out.write("bye\n");
+                    out.flush();
+                    stop();
+                    break;
+                }
+                out.write(answer(words));
+                out.write('\n');
+                out.flush();
+                queryLatency.record(System.nanoTime() - begin);
+                queries.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // connection closed by the client or by shutdown
+        } finally {
+            connections.remove(connection);
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+    }
+
+    /**
+     * @param words command and its arguments
+     * @return the answer, without the line break
+     */
+    private String answer(String[] words) {
+        String command = words[0];
+        try {
+            if ((command.equals("cost") || command.equals("path")) && words.length == 3 && pathQueries != null) {
+                return query(command, pathQueries, router(words[1]), router(words[2]));
+            } else if ((command.equals("nexthop") || command.equals("cost") || command.equals("path"))
+                    && words.length == 3) {
+                int src = router(words[1]);
+                int dest = router(words[2]);
+                int t = acquire();
+                try {
+                    return query(command, tables[t], src, dest);
+                } finally {
+                    release(t);
+                }
+            } else if (command.equals("change") && words.length == 4) {
+                int src = router(words[1]);
+                int dest = router(words[2]);
+                if (src == dest) {
+                    // the graph has no such link, so it would never be applied
+                    throw new IllegalArgumentException("no link from router " + words[1] + " to itself");
+                }
+                return "queued " + queue(src, dest, Integer.parseInt(words[3]));
+            } else if (command.equals("sync") && words.length == 1) {
+                return "version " + sync();
+            } else if (command.equals("version") && words.length == 1) {
+                return "version " + version;
+            } else if (command.equals("stats") && words.length == 1) {
+                return getStats();
+            }
+        } catch (NumberFormatException e) {
+            return "error expected numbers: " + String.join(" ", words);
+        } catch (IllegalArgumentException e) {
+            return "error " + e.getMessage();
+        }
+        return "error unknown command: " + String.join(" ", words);
+    }
+
+    /**
+     * @return router (0-based) of a router number as in the input files
+     * @throws IllegalArgumentException if there is no such router
+     */
+    private int router(String word) {
+        int router = Integer.parseInt(word) - offset;
+        if (router < 0 || router >= numberOfNodes) {
+            throw new IllegalArgumentException("no router " + word);
+        }
+        return router;
+    }
+
+    /**
+     * @return answer to a nexthop, cost or path query
+     */
+    private String query(String command, ForwardingTable t, int src, int dest) {
+        if (command.equals("nexthop")) {
+            return (t.nextHop(src, dest) + offset) + " " + t.cost(src, dest);
+        } else if (command.equals("cost")) {
+            return String.valueOf(t.cost(src, dest));
+        }
+        return path(t, src, dest);
+    }
+
+    /**
+     * @return answer to a cost or path query
+     */
+    private String query(String command, PathQueries p, int src, int dest) {
+        synchronized (p) {
+            if (command.equals("cost")) {
+                return String.valueOf(p.cost(src, dest));
+            }
+            ShortestPath path = p.path(src, dest);
+            if (!path.isReachable()) {
+                return "unreachable";
+            }
+            StringBuilder ret = new StringBuilder("hops");
+            for (int i = 0; i < path.getPathLength(); i++) {
+                ret.append(' ').append(path.getPathNode(i) + offset);
+            }
+            return ret.toString();
+        }
+    }
+
+    /**
+     * @return "hops <src> ... <dest>" following next hops from src, or
+     *         "unreachable", also if they go round in a loop
+     */
+    private String path(ForwardingTable t, int src, int dest) {
+        if (t.cost(src, dest) == -1) {
+            return "unreachable";
+        }
+        StringBuilder ret = new StringBuilder("hops ").append(src + offset);
+        int hop = src;
+        // a path visits each router once at most
+        for (int visited = 1; hop != dest; visited++) {
+            if (visited == numberOfNodes) {
+                return "unreachable";
+            }
+            hop = t.nextHop(hop, dest);
+            ret.append(' ').append(hop + offset);
+        }
+        return ret.toString();
+    }
+
+    /**
+     * @return number of the change, from 1, which sync waits for
+     */
+    private long queue(int src, int dest, int cost) {
+        synchronized (lock) {
+            if (pendingCount == pendingSrc.length) {
+                pendingSrc = Arrays.copyOf(pendingSrc, 2 * pendingCount);
+                pendingDest = Arrays.copyOf(pendingDest, 2 * pendingCount);
+                pendingCost = Arrays.copyOf(pendingCost, 2 * pendingCount);
+            }
+            pendingSrc[pendingCount] = src + 1;
+            pendingDest[pendingCount] = dest + 1;
+            pendingCost[pendingCount] = cost;
+            pendingCount++;
+            lock.notifyAll();
+            return ++received;
+        }
+    }
+
+    /**
+     * To wait until every change received so far is routed
+     *
+     * @return version routed
+     */
+    private long sync() {
+        synchronized (lock) {
+            long target = received;
+            while (running && version < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return version;
+        }
+    }
+
+    /**
+     * @return query count and latency percentiles, and changes routed per second
+     */
+    public String getStats() {
+        long routedChanges;
+        long routedBatches;
+        double seconds;
+        synchronized (lock) {
+            routedChanges = version;
+            routedBatches = batches;
+            seconds = routeNanos / 1e9;
+        }
+        return "queries " + queries.get() + " (p50 " + micros(queryLatency.getValueAtPercentile(50)) + " us, p99 "
+                + micros(queryLatency.getValueAtPercentile(99)) + " us, max " + micros(queryLatency.getMax())
+                + " us), changes " + routedChanges + " in " + routedBatches + " batches ("
+                + (seconds > 0 ? Math.round(routedChanges / seconds) : 0) + " changes/sec, "
+                + String.format("%.3f", routedBatches > 0 ? seconds * 1e3 / routedBatches : 0.0)
+                + " ms per batch), version " + version;
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1e3);
+    }
+}
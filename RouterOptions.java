@@ -0,0 +1,335 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: RouterOptions.java
+ * description: To parse the command line of lsrouter and dvrouter.
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RouterOptions holds the command line of lsrouter and dvrouter: the three
+ * input files, plus any --options given before them.
+ */
+class RouterOptions {
+    private String topologyFile, changesFile, messagesFile;
+    // keep routing state between changes instead of recomputing from scratch
+    private boolean incremental;
+    // number of worker threads for the all-sources phase
+    private int threads = 1;
+    // run dvrouter's routers as asynchronous actors
+    private boolean actors;
+    // dvrouter re-converges warm after each change with this update policy
+    // (BellmanFordEngine.NONE and so on), -1 recomputing from scratch
+    private int policy = -1;
+    // costs above this count as unreachable, 0 for the sum of all link costs
+    private int infinity;
+    // most changes applied together before routing, 0 for no limit but the
+    // window (one at a time if there is no window either)
+    private int batch;
+    // changes whose <time> is within this of the first of a batch go with it
+    private int batchWindow;
+    // lsrouter runs each source as parallel delta-stepping with buckets this
+    // wide, 0 for the average link cost, -1 running Dijkstra
+    private int deltaStepping = -1;
+    // dvrouter converges from scratch with a worklist (SPFA) instead of rounds
+    private boolean spfa;
+    // report what the routing engines did
+    private boolean verbose;
+    // memory budget of the lsrouter route cache, 0 turning it off
+    private int cacheMegabytes = 64;
+    // where the forwarding tables and message paths are written
+    private String outputFile = "output.txt";
+    // after the first state, write only what changed (see DeltaOutput)
+    private boolean delta;
+    // where to write the stage timings and counters, null for none
+    private String metricsFile;
+    // after the input files, serve the tables on this loopback port or
+    // unix:PATH socket, null to exit
+    private String serveAddress;
+    // binary snapshot written by mksnapshot, read instead of the topology file
+    private String snapshotFile;
+    // where lsrouter keeps its forwarding tables: heap, offheap or mmap:PATH
+    private String forwardingTableStorage = "heap";
+    // lsrouter answers the cost and path queries it serves from a contraction
+    // hierarchy instead of the tables
+    private boolean hierarchy;
+    // lsrouter answers them by a point-to-point search with this many ALT
+    // landmarks instead, 0 for plain bidirectional Dijkstra, -1 for neither
+    private int landmarks = -1;
+
+    /**
+     * To parse the command line. Prints usage and exits if it is not valid.
+     *
+     * @param router name of the router, for the usage message
+     * @param args   command line
+     * @return parsed options
+     */
+    public static RouterOptions parse(String router, String[] args) {
+        RouterOptions options = new RouterOptions();
+        List<String> files = new ArrayList<String>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                files.add(arg);
+            } else if (arg.equals("--incremental")) {
+                options.incremental = true;
+            } else if (arg.equals("--spfa")) {
+                options.spfa = true;
+            } else if (arg.equals("--actors")) {
+                options.actors = true;
+            } else if (arg.equals("--policy=none")) {
+                options.policy = BellmanFordEngine.NONE;
+            } else if (arg.equals("--policy=split-horizon")) {
+                options.policy = BellmanFordEngine.SPLIT_HORIZON;
+            } else if (arg.equals("--policy=poisoned-reverse")) {
+                options.policy = BellmanFordEngine.POISONED_REVERSE;
+            } else if (arg.startsWith("--infinity=")) {
+                options.infinity = parseNumber(router, arg, 1);
+            } else if (arg.startsWith("--batch=")) {
+                options.batch = parseNumber(router, arg, 1);
+            } else if (arg.startsWith("--batch-window=")) {
+                options.batchWindow = parseNumber(router, arg, 1);
+            } else if (arg.startsWith("--metrics=") && arg.length() > "--metrics=".length()) {
+                options.metricsFile = arg.substring("--metrics=".length());
+            } else if (arg.startsWith("--serve=unix:") && arg.length() > "--serve=unix:".length()) {
+                options.serveAddress = arg.substring("--serve=".length());
+            } else if (arg.startsWith("--serve=")) {
+                options.serveAddress = String.valueOf(parseNumber(router, arg, 0));
+            } else if (arg.equals("--delta-stepping")) {
+                options.deltaStepping = 0;
+            } else if (arg.startsWith("--delta-stepping=")) {
+                options.deltaStepping = parseNumber(router, arg, 1);
+            } else if (arg.equals("--delta")) {
+                options.delta = true;
+            } else if (arg.equals("--verbose")) {
+                options.verbose = true;
+            } else if (arg.startsWith("--threads=")) {
+                options.threads = parseNumber(router, arg, 1);
+            } else if (arg.startsWith("--cache-mb=")) {
+                options.cacheMegabytes = parseNumber(router, arg, 0);
+            } else if (arg.startsWith("--output=") && arg.length() > "--output=".length()) {
+                options.outputFile = arg.substring("--output=".length());
+            } else if (arg.startsWith("--snapshot=") && arg.length() > "--snapshot=".length()) {
+                options.snapshotFile = arg.substring("--snapshot=".length());
+            } else if (arg.equals("--fib=heap") || arg.equals("--fib=offheap")
+                    || (arg.startsWith("--fib=mmap:") && arg.length() > "--fib=mmap:".length())) {
+                options.forwardingTableStorage = arg.substring("--fib=".length());
+            } else if (arg.equals("--hierarchy")) {
+                options.hierarchy = true;
+            } else if (arg.equals("--point-to-point")) {
+                options.landmarks = 0;
+            } else if (arg.startsWith("--point-to-point=")) {
+                options.landmarks = parseNumber(router, arg, 0);
+            } else {
+                System.out.println("Unknown option " + arg);
+                usage(router);
+            }
+        }
+        if (options.hierarchy && options.landmarks >= 0) {
+            System.out.println("Options --hierarchy and --point-to-point cannot be used together");
+            usage(router);
+        }
+        // Check for correct number of arguments
+        if (options.snapshotFile == null) {
+            if (files.size() != 3) {
+                usage(router);
+            }
+            options.topologyFile = files.get(0);
+            files.remove(0);
+        } else if (files.size() != 0 && files.size() != 2) {
+            usage(router);
+        }
+        // the snapshot may hold the changes and messages itself
+        if (files.size() == 2) {
+            options.changesFile = files.get(0);
+            options.messagesFile = files.get(1);
+        }
+        return options;
+    }
+
+    /**
+     * To get the number after the = of an option
+     *
+     * @param min least value allowed
+     */
+    private static int parseNumber(String router, String arg, int min) {
+        try {
+            int value = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to usage
+        }
+        System.out.println("Option " + arg + " needs a number of at least " + min);
+        usage(router);
+        return 0;
+    }
+
+    private static void usage(String router) {
+        System.out.println("Usage: java " + router + " [options] <topofile> <changesfile> <messagefile>");
+        System.out.println("       java " + router + " [options] --snapshot=PATH [<changesfile> <messagefile>]");
+        System.out.println("  --incremental  repair routes after each change instead of recomputing them");
+        System.out.println("  --threads=N    compute the routes of all routers on N threads");
+        System.out.println("  --delta-stepping[=W] lsrouter: compute one router's routes at a time on all --threads,");
+        System.out.println("                 delta-stepping with buckets W wide (default the average link cost)");
+        System.out.println("  --actors       dvrouter: run every router as an actor exchanging vectors with its neighbours");
+        System.out.println("  --spfa         dvrouter: converge from scratch with a worklist of the routers whose vectors");
+        System.out.println("                 changed (SPFA) instead of rounds over every router");
+        System.out.println("  --policy=X     dvrouter: re-converge warm after each change, advertising with update");
+        System.out.println("                 policy none, split-horizon or poisoned-reverse");
+        System.out.println("  --infinity=N   dvrouter: costs above N count as unreachable (default sum of link costs)");
+        System.out.println("  --batch=N      apply N changes at a time, coalesced, and route once for each batch");
+        System.out.println("  --batch-window=T batch the changes whose <time> column is within T of the first");
+        System.out.println("  --verbose      report what the routing engines did (e.g. convergence rounds)");
+        System.out.println("  --cache-mb=N   memory for lsrouter's cached least-cost trees (default 64, 0 = off)");
+        System.out.println("  --output=PATH  file to write the output to (default output.txt)");
+        System.out.println("  --metrics=PATH time each stage and write the histograms and counters of each batch");
+        System.out.println("                 of changes to PATH, as CSV if it ends in .csv and as JSON otherwise");
+        System.out.println("  --delta        after the first state, write only the entries and message paths that changed");
+        System.out.println("  --serve=X      after the input files, answer queries and take changes on loopback port X");
+        System.out.println("                 (0 for any free port) or on Unix-domain socket unix:PATH, see RouterDaemon");
+        System.out.println("  --snapshot=PATH load the network from a snapshot made by mksnapshot");
+        System.out.println("  --fib=X        lsrouter's forwarding tables: heap, offheap or mmap:PATH (default heap)");
+        System.out.println("  --hierarchy    lsrouter: answer the cost and path queries --serve takes from a contraction");
+        System.out.println("                 hierarchy, re-customized after each change");
+        System.out.println("  --point-to-point[=K] lsrouter: answer them by a bidirectional search of the network instead,");
+        System.out.println("                 A* with K landmarks (ALT) if K is given");
+        System.exit(0);
+    }
+
+    public String getTopologyFile() {
+        return topologyFile;
+    }
+
+    /**
+     * @return changes file, or null if they come from the snapshot
+     */
+    public String getChangesFile() {
+        return changesFile;
+    }
+
+    /**
+     * @return messages file, or null if they come from the snapshot
+     */
+    public String getMessagesFile() {
+        return messagesFile;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * @return bucket width of lsrouter's delta-stepping, 0 for the average link
+     *         cost, -1 to run Dijkstra
+     */
+    public int getDeltaSteppingWidth() {
+        return deltaStepping;
+    }
+
+    public boolean isActors() {
+        return actors;
+    }
+
+    public boolean isSpfa() {
+        return spfa;
+    }
+
+    /**
+     * @return BellmanFordEngine.NONE, SPLIT_HORIZON or POISONED_REVERSE, or -1 to
+     *         recompute from scratch after each change
+     */
+    public int getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return bound above which costs count as unreachable, 0 for the sum of all
+     *         link costs
+     */
+    public int getInfinity() {
+        return infinity;
+    }
+
+    /**
+     * @return most changes in a batch, see ChangeBatches
+     */
+    public int getBatch() {
+        if (batch > 0) {
+            return batch;
+        }
+        return batchWindow > 0 ? Integer.MAX_VALUE : 1;
+    }
+
+    /**
+     * @return length of a batch in <time> units, 0 to batch by count only
+     */
+    public int getBatchWindow() {
+        return batchWindow;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    public int getCacheMegabytes() {
+        return cacheMegabytes;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    public boolean isDelta() {
+        return delta;
+    }
+
+    /**
+     * @return loopback port or unix:PATH to serve on, or null to exit after the
+     *         input files
+     */
+    public String getServeAddress() {
+        return serveAddress;
+    }
+
+    /**
+     * @return file to write the metrics to, or null to leave them off
+     */
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * @return snapshot to load, or null to read the text files
+     */
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * @return "heap", "offheap" or "mmap:PATH", as taken by ForwardingTable.create
+     */
+    public String getForwardingTableStorage() {
+        return forwardingTableStorage;
+    }
+
+    /**
+     * @return true to serve cost and path queries from a ContractionHierarchy
+     */
+    public boolean isHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * @return number of landmarks of the PointToPointEngine serving cost and
+     *         path queries, 0 for none, -1 to serve them from the tables
+     */
+    public int getLandmarks() {
+        return landmarks;
+    }
+}
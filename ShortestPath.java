@@ -0,0 +1,35 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: ShortestPath.java
+ * description: To read the path of a point-to-point least-cost query.
+ */
+/**
+ * The least-cost path between two nodes found by the last query of a
+ * point-to-point engine, which is the path lsrouter's least-cost tree of the
+ * source holds. Nodes are 0-based, like the graph.
+ */
+interface ShortestPath {
+    int getSource();
+
+    int getTarget();
+
+    /**
+     * @return cost of the path, DijkstraEngine.INFINITY if there is none
+     */
+    int getCost();
+
+    boolean isReachable();
+
+    /**
+     * @return number of nodes on the path, source and target included, 0 if
+     *         there is none
+     */
+    int getPathLength();
+
+    /**
+     * @param i position on the path, 0 being the source
+     * @return node at that position
+     */
+    int getPathNode(int i);
+}
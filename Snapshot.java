@@ -0,0 +1,352 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: Snapshot.java
+ * description: To load the input of a run from the text files or a binary snapshot, and to write snapshots.
+ */
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A Snapshot is everything a router reads before it starts: the offset, the
+ * node table, the graph of the initial topology and, optionally, the changes
+ * and messages. It is either parsed from the text files or loaded from a
+ * binary snapshot file written by mksnapshot, which skips the parsing, the
+ * offset and node count, and the building of the graph.
+ *
+ * A snapshot file is little-endian ints, laid out as
+ *
+ * <pre>
+ * header   magic "RSNP", version, flags (1 = changes, 2 = messages), offset,
+ *          number of nodes, number of arcs, number of changes, number of
+ *          messages, bytes of message text (a long, low int first)
+ * nodes    node number of every router, in increasing order
+ * graph    row offsets (nodes + 1), then targets and costs (arcs each)
+ * changes  src, dest and cost arrays, as in the changes file
+ * messages src, dest and text length arrays, as in the messages file, then
+ *          the text of each in turn, padded to a multiple of 4 bytes
+ * crc      CRC-32 of every byte before it
+ * </pre>
+ *
+ * It is loaded through a memory map, in chunks so it may be larger than 2 GB:
+ * the checksum is checked over the mapping and the arrays are bulk-copied out
+ * of it, while message text stays in the mapping.
+ */
+class Snapshot {
+    private static final int MAGIC = 'R' | 'S' << 8 | 'N' << 16 | 'P' << 24;
+    private static final int VERSION = 2;
+    private static final int HAS_CHANGES = 1;
+    private static final int HAS_MESSAGES = 2;
+    private static final int HEADER_INTS = 10;
+
+    private int offset;
+    private int[] nodes;
+    private CsrGraph graph;
+    // null if the snapshot does not hold them
+    private LinkFile changes;
+    private MessageFile messages;
+
+    private Snapshot() {
+    }
+
+    /**
+     * To get the input a router was started with: a snapshot file if one was
+     * given, with any changes and messages files given overriding its own, and
+     * the three text files otherwise
+     *
+     * @param options command line of the router
+     * @return input of the router
+     * @throws IllegalArgumentException if a file is malformed or corrupt, or the
+     *                                  snapshot lacks changes or messages that
+     *                                  were not given as files
+     */
+    public static Snapshot load(RouterOptions options) throws IOException {
+        if (options.getSnapshotFile() == null) {
+            return fromText(options.getTopologyFile(), options.getChangesFile(), options.getMessagesFile());
+        }
+        Snapshot snapshot = read(options.getSnapshotFile());
+        if (options.getChangesFile() != null) {
+            snapshot.changes = LinkFile.readChanges(options.getChangesFile());
+            snapshot.messages = MessageFile.read(options.getMessagesFile(), snapshot.offset, snapshot.lastRouter());
+        } else if (snapshot.changes == null || snapshot.messages == null) {
+            throw new IllegalArgumentException(options.getSnapshotFile()
+                    + ": snapshot has no changes or messages, give <changesfile> <messagefile>");
+        }
+        return snapshot;
+    }
+
+    /**
+     * To parse the text files
+     *
+     * @param topologyFile topology file
+     * @param changesFile  changes file, or null to leave them out
+     * @param messagesFile messages file, or null to leave them out
+     */
+    public static Snapshot fromText(String topologyFile, String changesFile, String messagesFile)
+            throws IOException {
+        Snapshot snapshot = new Snapshot();
+        LinkFile topology = LinkFile.read(topologyFile);
+        snapshot.offset = topology.getOffset();
+        snapshot.nodes = topology.getNodes();
+        snapshot.graph = topology.toGraph(snapshot.offset);
+        if (changesFile != null) {
+            snapshot.changes = LinkFile.readChanges(changesFile);
+        }
+        if (messagesFile != null) {
+            snapshot.messages = MessageFile.read(messagesFile, snapshot.offset, snapshot.lastRouter());
+        }
+        return snapshot;
+    }
+
+    /**
+     * To load a snapshot file
+     *
+     * @param fileName snapshot file
+     * @throws IllegalArgumentException if it cannot be opened, is not a
+     *                                  snapshot, is of another version, or is
+     *                                  corrupt
+     */
+    public static Snapshot read(String fileName) throws IOException {
+        MappedFile map = new MappedFile(fileName);
+        long size = map.size();
+        if (size < 4 * (HEADER_INTS + 1) || map.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(fileName + ": not a snapshot");
+        }
+        if (map.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(
+                    fileName + ": snapshot version " + map.getInt(4) + ", expected " + VERSION);
+        }
+        CRC32 crc = new CRC32();
+        map.update(crc, 0, size - 4);
+        if ((int) crc.getValue() != map.getInt(size - 4)) {
+            throw new IllegalArgumentException(fileName + ": checksum mismatch, snapshot is corrupt");
+        }
+        int flags = map.getInt(8);
+        int n = map.getInt(16);
+        int arcs = map.getInt(20);
+        int changeCount = map.getInt(24);
+        int messageCount = map.getInt(28);
+        long textBytes = (map.getInt(32) & 0xFFFFFFFFL) | (long) map.getInt(36) << 32;
+        long expected = 4L * (HEADER_INTS + n + n + 1 + 2L * arcs + 3L * changeCount + 3L * messageCount + 1)
+                + ((textBytes + 3) & ~3L);
+        if (n < 0 || arcs < 0 || changeCount < 0 || messageCount < 0 || textBytes < 0 || expected != size) {
+            throw new IllegalArgumentException(fileName + ": section sizes do not match the file, snapshot is corrupt");
+        }
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.offset = map.getInt(12);
+        long[] at = { 4 * HEADER_INTS };
+        snapshot.nodes = getInts(map, at, n);
+        int[] rows = getInts(map, at, n + 1);
+        int[] targets = getInts(map, at, arcs);
+        int[] costs = getInts(map, at, arcs);
+        snapshot.graph = CsrGraph.fromRows(n, rows, targets, costs);
+        int[] src = getInts(map, at, changeCount);
+        int[] dest = getInts(map, at, changeCount);
+        int[] cost = getInts(map, at, changeCount);
+        if ((flags & HAS_CHANGES) != 0) {
+            snapshot.changes = new LinkFile(changeCount, src, dest, cost);
+        }
+        src = getInts(map, at, messageCount);
+        dest = getInts(map, at, messageCount);
+        int[] length = getInts(map, at, messageCount);
+        if ((flags & HAS_MESSAGES) != 0) {
+            // each text follows the one before it
+            long[] start = new long[messageCount];
+            long textStart = at[0];
+            for (int i = 0; i < messageCount; i++) {
+                start[i] = textStart;
+                textStart += length[i];
+            }
+            if (textStart - at[0] != textBytes) {
+                throw new IllegalArgumentException(
+                        fileName + ": message lengths do not match the text, snapshot is corrupt");
+            }
+            snapshot.messages = new MessageFile(map, messageCount, src, dest, start, length);
+            int outside = snapshot.messages.findOutside(snapshot.offset, snapshot.lastRouter());
+            if (outside != -1) {
+                throw new IllegalArgumentException(fileName + ": message " + (outside + 1)
+                        + " names a router not in the topology, snapshot is corrupt");
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * To write this snapshot to a file
+     *
+     * @param fileName snapshot file, created or emptied
+     */
+    public void write(String fileName) throws IOException {
+        int n = graph.getNumberOfNodes();
+        int[] rows = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            rows[u + 1] = rows[u] + graph.getDegree(u);
+        }
+        int arcs = rows[n];
+        int changeCount = changes == null ? 0 : changes.getCount();
+        int messageCount = messages == null ? 0 : messages.getCount();
+        byte[][] text = new byte[messageCount][];
+        long textBytes = 0;
+        for (int i = 0; i < messageCount; i++) {
+            text[i] = messages.getMessageBytes(i);
+            textBytes += text[i].length;
+        }
+
+        FileOutputStream stream = new FileOutputStream(fileName);
+        try {
+            Writer out = new Writer(stream.getChannel());
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt((changes == null ? 0 : HAS_CHANGES) | (messages == null ? 0 : HAS_MESSAGES));
+            out.putInt(offset);
+            out.putInt(n);
+            out.putInt(arcs);
+            out.putInt(changeCount);
+            out.putInt(messageCount);
+            out.putInt((int) textBytes);
+            out.putInt((int) (textBytes >>> 32));
+            for (int u = 0; u < n; u++) {
+                out.putInt(nodes[u]);
+            }
+            for (int u = 0; u <= n; u++) {
+                out.putInt(rows[u]);
+            }
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.begin(u); e < graph.end(u); e++) {
+                    out.putInt(graph.target(e));
+                }
+            }
+            for (int u = 0; u < n; u++) {
+                for (int e = graph.begin(u); e < graph.end(u); e++) {
+                    out.putInt(graph.cost(e));
+                }
+            }
+            for (int i = 0; i < changeCount; i++) {
+                out.putInt(changes.getSrc(i));
+            }
+            for (int i = 0; i < changeCount; i++) {
+                out.putInt(changes.getDest(i));
+            }
+            for (int i = 0; i < changeCount; i++) {
+                out.putInt(changes.getCost(i));
+            }
+            for (int i = 0; i < messageCount; i++) {
+                out.putInt(messages.getSrc(i));
+            }
+            for (int i = 0; i < messageCount; i++) {
+                out.putInt(messages.getDest(i));
+            }
+            for (int i = 0; i < messageCount; i++) {
+                out.putInt(text[i].length);
+            }
+            for (int i = 0; i < messageCount; i++) {
+                out.put(text[i]);
+            }
+            out.put(new byte[(int) ((4 - textBytes % 4) % 4)]);
+            out.flush();
+            // the checksum covers everything flushed so far, but not itself
+            out.putInt((int) out.crc.getValue());
+            out.flush();
+        } finally {
+            stream.close();
+        }
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getNumberOfNodes() {
+        return nodes.length;
+    }
+
+    /**
+     * @return node number of every router, in increasing order
+     */
+    public int[] getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return graph of the initial topology, which the router may change
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return changes as in the changes file, or null if there are none
+     */
+    public LinkFile getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return messages as in the messages file, or null if there are none
+     */
+    public MessageFile getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return highest router number of the topology, as in the input files
+     */
+    private int lastRouter() {
+        return offset + graph.getNumberOfNodes() - 1;
+    }
+
+    /**
+     * @param at position of the ints in the mapping, moved past them
+     */
+    private static int[] getInts(MappedFile map, long[] at, int count) {
+        int[] values = new int[count];
+        map.getInts(at[0], values);
+        at[0] += 4L * count;
+        return values;
+    }
+
+    /**
+     * Little-endian output through a buffer, keeping the CRC of what it flushed
+     */
+    private static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc = new CRC32();
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length;) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.put(bytes, i, count);
+                i += count;
+            }
+        }
+
+        void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
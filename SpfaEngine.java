@@ -0,0 +1,188 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: SpfaEngine.java
+ * description: To converge dvrouter's distance vectors from scratch with a worklist (SPFA).
+ */
+import java.util.Arrays;
+
+/**
+ * An SpfaEngine converges distance vectors the way the Shortest Path Faster
+ * Algorithm does, instead of in rounds where every router rebuilds its whole
+ * vector: only a router whose vector changed is queued, and only the entries
+ * that changed (kept in a dirty bitset per router, one bit per destination)
+ * are offered to its neighbours when it is taken off the queue. A quiet part of
+ * the network costs nothing, so the relaxations follow the work that actually
+ * changes.
+ *
+ * Routers are taken first in, first out, in passes: a pass takes every router
+ * that was queued when it began. An entry whose least-cost path has h links is
+ * final after pass h, so no router is queued more than once a pass or more
+ * than n times in all. A router queued more often than that has a cost that
+ * keeps going down (a negative cycle, or counting to infinity), and converge
+ * stops with an error instead of looping. Costs above the bound count as
+ * unreachable, as in BellmanFordEngine.
+ *
+ * Equal costs keep the lowest-numbered neighbour, so the vectors are the same
+ * as BellmanFordEngine's rounds converge to. The vectors are the engine's
+ * arrays, entry (i, j) at index i * n + j, cost -1 if j cannot be reached.
+ */
+class SpfaEngine {
+    private final int numberOfNodes;
+    // longs in a router's dirty bitset
+    private final int words;
+    // dirty[k * words + w] holds the entries of router k's vector that changed
+    // since its neighbours were last offered them
+    private final long[] dirty;
+    // routers waiting, as a ring (each is in it at most once)
+    private final int[] queue;
+    private final boolean[] queued;
+    // times each router was queued in this run
+    private final int[] timesQueued;
+    // dirty entries of the router being taken off the queue
+    private final int[] changed;
+    private int head, size;
+    private int passes;
+    private long updates;
+    private long relaxations;
+
+    public SpfaEngine(int numberOfNodes) {
+        this.numberOfNodes = numberOfNodes;
+        words = (numberOfNodes + 63) >>> 6;
+        dirty = new long[numberOfNodes * words];
+        queue = new int[numberOfNodes];
+        queued = new boolean[numberOfNodes];
+        timesQueued = new int[numberOfNodes];
+        changed = new int[numberOfNodes];
+    }
+
+    /**
+     * SPFA. Converges every router's vector from scratch.
+     *
+     * @param graph   graph of network to run algorithm on
+     * @param cost    filled with the cost of entry (i, j) at index i * n + j
+     * @param through filled with the next hop of entry (i, j)
+     * @param bound   greatest cost that counts as reachable
+     * @throws IllegalStateException if a router is queued more than n times
+     */
+    public void converge(CsrGraph graph, int[] cost, int[] through, int bound) {
+        int n = numberOfNodes;
+        Arrays.fill(dirty, 0);
+        Arrays.fill(timesQueued, 0);
+        head = 0;
+        size = 0;
+        passes = 0;
+        updates = 0;
+        relaxations = 0;
+        // every router knows only itself, which is news to its neighbours
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                cost[i * n + j] = j == i ? 0 : -1;
+                through[i * n + j] = i;
+            }
+            markDirty(i, i);
+        }
+        while (size > 0) {
+            long begin = Metrics.begin();
+            for (int taken = size; taken > 0; taken--) {
+                int k = queue[head];
+                head = head + 1 == n ? 0 : head + 1;
+                size--;
+                queued[k] = false;
+                offer(graph, k, cost, through, bound);
+            }
+            passes++;
+            Metrics.end(Metrics.DV_ROUND, begin);
+        }
+        Metrics.count(Metrics.RELAXATIONS, relaxations);
+    }
+
+    /**
+     * To offer the changed entries of router k to each of its neighbours,
+     * queueing the neighbours whose vectors change
+     */
+    private void offer(CsrGraph graph, int k, int[] cost, int[] through, int bound) {
+        int n = numberOfNodes;
+        // take the dirty entries, clearing them
+        int count = 0;
+        int base = k * words;
+        for (int w = 0; w < words; w++) {
+            long bits = dirty[base + w];
+            dirty[base + w] = 0;
+            while (bits != 0) {
+                changed[count++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        int rowK = k * n;
+        for (int e = graph.begin(k); e < graph.end(k); e++) {
+            int i = graph.target(e);
+            int linkCost = graph.cost(e);
+            int rowI = i * n;
+            for (int x = 0; x < count; x++) {
+                int j = changed[x];
+                relaxations++;
+                int c = cost[rowK + j] + linkCost;
+                if (c > bound) {
+                    continue;
+                }
+                int current = cost[rowI + j];
+                if (current == -1 || c < current) {
+                    cost[rowI + j] = c;
+                    through[rowI + j] = k;
+                    updates++;
+                    markDirty(i, j);
+                } else if (c == current && k < through[rowI + j]) {
+                    // Tie break condition, which the neighbours need not hear
+                    through[rowI + j] = k;
+                    updates++;
+                }
+            }
+        }
+    }
+
+    /**
+     * To mark entry (i, j) as changed and queue router i if it is not waiting
+     * already
+     */
+    private void markDirty(int i, int j) {
+        dirty[i * words + (j >>> 6)] |= 1L << (j & 63);
+        if (queued[i]) {
+            return;
+        }
+        if (++timesQueued[i] > numberOfNodes) {
+            throw new IllegalStateException("router " + i + " queued more than " + numberOfNodes
+                    + " times: a cost is counting to infinity");
+        }
+        queued[i] = true;
+        int tail = head + size;
+        queue[tail >= numberOfNodes ? tail - numberOfNodes : tail] = i;
+        size++;
+    }
+
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return number of passes the last run took, counting the last one in
+     *         which nothing changed
+     */
+    public int getPasses() {
+        return passes;
+    }
+
+    /**
+     * @return number of entries that changed in the last run
+     */
+    public long getUpdates() {
+        return updates;
+    }
+
+    /**
+     * @return number of neighbour offers weighed in the last run
+     */
+    public long getRelaxations() {
+        return relaxations;
+    }
+}
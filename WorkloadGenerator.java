@@ -0,0 +1,279 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: WorkloadGenerator.java
+ * description: To generate random topology, changes and messages files.
+ */
+import java.io.FileNotFoundException;
+
+/**
+ * A WorkloadGenerator writes a topology, changes and messages file for load
+ * testing the routers. Nothing is kept in memory: link i of the topology is a
+ * pure function of the seed and i, so the changes can pick a link by index and
+ * work out its ends and cost again instead of remembering the topology, and
+ * every file is streamed through an OutputBuffer.
+ *
+ * The first n - 1 links are a random spanning tree (link i joins router i + 1
+ * to a random lower router), so the network is connected; the rest are drawn
+ * between routers picked uniformly or, for a power-law degree distribution,
+ * with Chung-Lu weights. Two drawn links may join the same routers, in which
+ * case the later one wins, as in any topology file, but a drawn link on the
+ * two routers of a spanning tree link is left out, so removing a drawn link
+ * never takes a tree link down with it.
+ */
+class WorkloadGenerator {
+    // settings, see mkworkload for their meaning
+    int nodes = 1000;
+    double degree = 4;
+    String degreeDistribution = "uniform";
+    double powerLawExponent = 2.5;
+    String costDistribution = "uniform";
+    int minCost = 1;
+    int maxCost = 20;
+    long seed = 1;
+    long changes = 100;
+    String churn = "mixed";
+    long messages = 100;
+    double skew = 1.0;
+    int base = 1;
+
+    // number of links in the topology
+    private long links;
+    // links that are not in the spanning tree, so removing them keeps the
+    // network connected
+    private long extraLinks;
+    // draws of the changes and messages, after the ones of the links
+    private long draw;
+    // multiplier of the shuffle of popular routers, coprime to nodes
+    private long shuffle;
+
+    /**
+     * To write all three files
+     */
+    public void write(String topologyFile, String changesFile, String messagesFile) throws FileNotFoundException {
+        links = Math.max(nodes - 1, Math.round(nodes * degree / 2));
+        extraLinks = links - (nodes - 1);
+        shuffle = (long) (nodes * 0.6180339887) | 1;
+        while (gcd(shuffle, nodes) != 1) {
+            shuffle += 2;
+        }
+        writeTopology(topologyFile);
+        writeChanges(changesFile);
+        writeMessages(messagesFile);
+    }
+
+    public long getNumberOfLinks() {
+        return links;
+    }
+
+    private void writeTopology(String fileName) throws FileNotFoundException {
+        OutputBuffer out = new OutputBuffer(fileName);
+        int[] ends = new int[2];
+        for (long i = 0; i < links; i++) {
+            if (linkEnds(i, ends)) {
+                writeLink(out, ends[0], ends[1], linkCost(i));
+            }
+        }
+        out.close();
+    }
+
+    /**
+     * Changes are flaps (a link goes down with -999 and comes back at its cost a
+     * few changes later), drift (a link's cost moves around its cost in the
+     * topology) and removals (a link outside the spanning tree goes down for
+     * good)
+     */
+    private void writeChanges(String fileName) throws FileNotFoundException {
+        OutputBuffer out = new OutputBuffer(fileName);
+        // flapped links waiting to come back, as link index + 1 (0 is empty)
+        long[] pending = new long[8];
+        int[] ends = new int[2];
+        long written = 0;
+        while (written < changes) {
+            long r = random(draw++);
+            int slot = (int) ((r >>> 60) & 7);
+            if (pending[slot] != 0) {
+                // bring a flapped link back up
+                long i = pending[slot] - 1;
+                pending[slot] = 0;
+                linkEnds(i, ends);
+                writeLink(out, ends[0], ends[1], linkCost(i));
+                written++;
+                continue;
+            }
+            String kind = churn;
+            if (kind.equals("mixed")) {
+                int pick = (int) ((r & 0xFFFF) % 3);
+                kind = pick == 0 ? "flap" : pick == 1 ? "drift" : "remove";
+            }
+            long i;
+            long pick = random(draw++);
+            if (kind.equals("remove")) {
+                if (extraLinks == 0) {
+                    kind = "drift";
+                    i = uniform(pick, links);
+                } else {
+                    i = nodes - 1 + uniform(pick, extraLinks);
+                }
+            } else {
+                i = uniform(pick, links);
+            }
+            if (!linkEnds(i, ends)) {
+                continue;
+            }
+            if (kind.equals("drift")) {
+                int cost = linkCost(i);
+                int step = Math.max(1, (maxCost - minCost) / 10);
+                int drifted = cost + (int) (uniform(random(draw++), 2 * step + 1)) - step;
+                writeLink(out, ends[0], ends[1], Math.max(minCost, Math.min(maxCost, drifted)));
+            } else {
+                writeLink(out, ends[0], ends[1], -999);
+                if (kind.equals("flap")) {
+                    pending[slot] = i + 1;
+                }
+            }
+            written++;
+        }
+        out.close();
+    }
+
+    /**
+     * Sources and destinations are drawn from a Zipf-like popularity with
+     * exponent skew over a fixed shuffle of the routers, so some routers send
+     * and receive far more than others
+     */
+    private void writeMessages(String fileName) throws FileNotFoundException {
+        OutputBuffer out = new OutputBuffer(fileName);
+        for (long k = 0; k < messages; k++) {
+            int src = popular(random(draw++));
+            int dest = popular(random(draw++));
+            if (src == dest) {
+                dest = (dest + 1) % nodes;
+            }
+            out.print(src + base);
+            out.print(' ');
+            out.print(dest + base);
+            out.print(" message ");
+            out.print(k);
+            out.print('\n');
+        }
+        out.close();
+    }
+
+    /**
+     * To work out the ends of link i
+     *
+     * @param ends filled with the two routers (0-based)
+     * @return false if the drawn link joins a router to itself or the two
+     *         routers of a tree link, which is left out
+     */
+    private boolean linkEnds(long i, int[] ends) {
+        if (i < nodes - 1) {
+            ends[0] = treeParent((int) (i + 1));
+            ends[1] = (int) (i + 1);
+            return true;
+        }
+        long r = random(-1 - i);
+        if (degreeDistribution.equals("powerlaw")) {
+            // Chung-Lu: weight of router k proportional to (k + 1) ^ -1/(exponent - 1)
+            double a = 1 / (powerLawExponent - 1);
+            ends[0] = zipf(r, a);
+            ends[1] = zipf(random(r), a);
+        } else {
+            ends[0] = (int) uniform(r, nodes);
+            ends[1] = (int) uniform(random(r), nodes);
+        }
+        if (ends[0] == ends[1]) {
+            return false;
+        }
+        // router v > 0 is joined to its parent by tree link v - 1
+        int low = Math.min(ends[0], ends[1]);
+        int high = Math.max(ends[0], ends[1]);
+        return treeParent(high) != low;
+    }
+
+    /**
+     * @param v router other than 0
+     * @return lower router that tree link v - 1 joins v to
+     */
+    private int treeParent(int v) {
+        return (int) uniform(random(-v), v);
+    }
+
+    private int linkCost(long i) {
+        long r = random(Long.MIN_VALUE + i);
+        int range = maxCost - minCost + 1;
+        if (costDistribution.equals("exponential")) {
+            // mean of a quarter of the range, cut off at maxCost
+            double u = (r >>> 11) * 0x1.0p-53;
+            int cost = minCost + (int) (-Math.log(1 - u) * range / 4);
+            return Math.min(maxCost, cost);
+        }
+        if (costDistribution.equals("normal")) {
+            // around the middle of the range, most of it within the range
+            double u1 = ((r >>> 11) + 1) * 0x1.0p-53;
+            double u2 = (random(r) >>> 11) * 0x1.0p-53;
+            double z = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+            int cost = (int) Math.round(minCost + (range - 1) / 2.0 + z * range / 6);
+            return Math.max(minCost, Math.min(maxCost, cost));
+        }
+        return minCost + (int) uniform(r, range);
+    }
+
+    private void writeLink(OutputBuffer out, int u, int v, int cost) {
+        out.print(u + base);
+        out.print(' ');
+        out.print(v + base);
+        out.print(' ');
+        out.print(cost);
+        out.print('\n');
+    }
+
+    /**
+     * @return router picked by popularity
+     */
+    private int popular(long r) {
+        int rank = zipf(r, skew);
+        // fixed shuffle, so the popular routers are spread over the numbering
+        return (int) ((rank * shuffle + Math.floorMod(seed, nodes)) % nodes);
+    }
+
+    /**
+     * @return rank from 0 to nodes - 1, rank k drawn with probability about
+     *         proportional to (k + 1) ^ -s, by inverting the continuous
+     *         distribution
+     */
+    private int zipf(long r, double s) {
+        double u = (r >>> 11) * 0x1.0p-53;
+        double x;
+        if (Math.abs(s - 1) < 1e-9) {
+            x = Math.pow(nodes + 1, u);
+        } else {
+            double top = Math.pow(nodes + 1, 1 - s);
+            x = Math.pow(1 + u * (top - 1), 1 / (1 - s));
+        }
+        return (int) Math.max(0, Math.min(nodes - 1, (long) x - 1));
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /**
+     * @return number from 0 to bound - 1
+     */
+    private static long uniform(long r, long bound) {
+        return Math.floorMod(r, bound);
+    }
+
+    /**
+     * @return random number for draw i, the same for the same seed and i
+     *         (SplitMix64)
+     */
+    private long random(long i) {
+        long z = seed * 0x9E3779B97F4A7C15L + i * 0xBF58476D1CE4E5B9L + 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
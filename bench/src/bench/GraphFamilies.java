@@ -0,0 +1,141 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: GraphFamilies.java
+ * description: To write the topology files of the network shapes the benchmarks run on.
+ */
+package bench;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * GraphFamilies writes topology files of the shapes the routers are benchmarked
+ * on. Every family is connected, numbers its routers from 1, and draws its
+ * costs from 1 to 20 with a fixed seed, so a benchmark sees the same network
+ * on every run.
+ *
+ * ring      each router linked to the next, the last to the first
+ * grid      routers in rows of about sqrt(n), linked right and down
+ * sparse    a random spanning tree plus 2n random links (average degree 6)
+ * dense     every pair linked with probability 1/2
+ * scalefree preferential attachment, each new router linking to 3 others
+ */
+final class GraphFamilies {
+    private static final long SEED = 42;
+    private static final int MAX_COST = 20;
+
+    private final int numberOfNodes;
+    private final Random random = new Random(SEED);
+    // links already made, as lower * n + higher (0-based)
+    private final Set<Long> links = new HashSet<Long>();
+    private final StringBuilder out = new StringBuilder();
+
+    private GraphFamilies(int numberOfNodes) {
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    /**
+     * To write a topology file of a family
+     *
+     * @param family        ring, grid, sparse, dense or scalefree
+     * @param numberOfNodes number of routers
+     * @param file          topology file to write
+     */
+    static void write(String family, int numberOfNodes, File file) throws FileNotFoundException {
+        GraphFamilies graph = new GraphFamilies(numberOfNodes);
+        if (family.equals("ring")) {
+            graph.ring();
+        } else if (family.equals("grid")) {
+            graph.grid();
+        } else if (family.equals("sparse")) {
+            graph.sparse();
+        } else if (family.equals("dense")) {
+            graph.dense();
+        } else if (family.equals("scalefree")) {
+            graph.scaleFree();
+        } else {
+            throw new IllegalArgumentException("unknown graph family " + family);
+        }
+        PrintWriter writer = new PrintWriter(file);
+        writer.print(graph.out);
+        writer.close();
+    }
+
+    private void ring() {
+        for (int u = 0; u < numberOfNodes; u++) {
+            link(u, (u + 1) % numberOfNodes);
+        }
+    }
+
+    private void grid() {
+        int width = (int) Math.ceil(Math.sqrt(numberOfNodes));
+        for (int u = 0; u < numberOfNodes; u++) {
+            if ((u + 1) % width != 0 && u + 1 < numberOfNodes) {
+                link(u, u + 1);
+            }
+            if (u + width < numberOfNodes) {
+                link(u, u + width);
+            }
+        }
+    }
+
+    private void sparse() {
+        tree();
+        for (int i = 0; i < 2 * numberOfNodes; i++) {
+            link(random.nextInt(numberOfNodes), random.nextInt(numberOfNodes));
+        }
+    }
+
+    private void dense() {
+        tree();
+        for (int u = 0; u < numberOfNodes; u++) {
+            for (int v = u + 1; v < numberOfNodes; v++) {
+                if (random.nextBoolean()) {
+                    link(u, v);
+                }
+            }
+        }
+    }
+
+    private void scaleFree() {
+        // every link end, so picking one uniformly is picking by degree
+        int[] ends = new int[6 * numberOfNodes + 6];
+        int count = 0;
+        for (int u = 1; u < numberOfNodes; u++) {
+            int made = 0;
+            for (int tries = 0; made < Math.min(3, u) && tries < 30; tries++) {
+                int v = count == 0 ? 0 : ends[random.nextInt(count)];
+                if (link(u, v)) {
+                    ends[count++] = u;
+                    ends[count++] = v;
+                    made++;
+                }
+            }
+        }
+    }
+
+    /**
+     * A random spanning tree, so the family is connected
+     */
+    private void tree() {
+        for (int u = 1; u < numberOfNodes; u++) {
+            link(random.nextInt(u), u);
+        }
+    }
+
+    /**
+     * @return false if u and v are the same or already linked
+     */
+    private boolean link(int u, int v) {
+        if (u == v || !links.add((long) Math.min(u, v) * numberOfNodes + Math.max(u, v))) {
+            return false;
+        }
+        out.append(u + 1).append(' ').append(v + 1).append(' ').append(1 + random.nextInt(MAX_COST)).append('\n');
+        return true;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: Routers.java
+ * description: To reach the routing code in the default package from the benchmarks.
+ */
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Routers reaches the routing code from the bench package. The routers live in
+ * the default package, which a named package cannot import, and JMH does not
+ * allow benchmarks in the default package, so every entry point is looked up
+ * once by reflection and kept as a static final MethodHandle, which the JIT
+ * treats as a constant and inlines through like a direct call.
+ *
+ * Graphs, engines, tables and buffers are handed around as Object, since their
+ * classes are package-private.
+ */
+final class Routers {
+    private static final MethodHandle FROM_TEXT;
+    private static final MethodHandle GET_OFFSET;
+    private static final MethodHandle GET_GRAPH;
+    private static final MethodHandle GET_MESSAGES;
+    private static final MethodHandle NEW_DIJKSTRA;
+    private static final MethodHandle RUN_DIJKSTRA;
+    private static final MethodHandle GET_DISTANCES;
+    private static final MethodHandle GET_PREDECESSORS;
+    private static final MethodHandle GET_ORDER;
+    private static final MethodHandle GET_SETTLED_COUNT;
+    private static final MethodHandle COMPUTE_FIRST_HOPS;
+    private static final MethodHandle NEW_TABLE;
+    private static final MethodHandle SET_ROW;
+    private static final MethodHandle PRINT_TABLE;
+    private static final MethodHandle NEW_MESSAGE_ROUTER;
+    private static final MethodHandle ROUTE_MESSAGES;
+    private static final MethodHandle NEW_OUTPUT;
+    private static final MethodHandle CLEAR_OUTPUT;
+    private static final MethodHandle NEW_BELLMAN_FORD;
+    private static final MethodHandle RUN_BELLMAN_FORD;
+
+    static {
+        try {
+            Class<?> snapshot = Class.forName("Snapshot");
+            Class<?> messageFile = Class.forName("MessageFile");
+            Class<?> graph = Class.forName("CsrGraph");
+            Class<?> dijkstra = Class.forName("DijkstraEngine");
+            Class<?> ls = Class.forName("lsrouter");
+            Class<?> table = Class.forName("ForwardingTable");
+            Class<?> messageRouter = Class.forName("MessageRouter");
+            Class<?> output = Class.forName("OutputBuffer");
+            Class<?> bellmanFord = Class.forName("BellmanFordEngine");
+            FROM_TEXT = handle(snapshot, "fromText", String.class, String.class, String.class);
+            GET_OFFSET = handle(snapshot, "getOffset");
+            GET_GRAPH = handle(snapshot, "getGraph");
+            GET_MESSAGES = handle(snapshot, "getMessages");
+            NEW_DIJKSTRA = constructor(dijkstra, int.class);
+            RUN_DIJKSTRA = handle(dijkstra, "run", graph, int.class);
+            GET_DISTANCES = handle(dijkstra, "getDistances");
+            GET_PREDECESSORS = handle(dijkstra, "getPredecessors");
+            GET_ORDER = handle(dijkstra, "getOrder");
+            GET_SETTLED_COUNT = handle(dijkstra, "getSettledCount");
+            COMPUTE_FIRST_HOPS = handle(ls, "computeFirstHops", int.class, int[].class, int[].class, int.class,
+                    int[].class);
+            NEW_TABLE = handle(table, "onHeap", int.class);
+            SET_ROW = handle(table, "setRow", int.class, int[].class, int[].class);
+            PRINT_TABLE = handle(table, "print", output, int.class);
+            NEW_MESSAGE_ROUTER = constructor(messageRouter, messageFile);
+            ROUTE_MESSAGES = handle(messageRouter, "print", output, table, int.class);
+            NEW_OUTPUT = constructor(output);
+            CLEAR_OUTPUT = handle(output, "clear");
+            NEW_BELLMAN_FORD = constructor(bellmanFord, int.class, ExecutorService.class, int.class);
+            RUN_BELLMAN_FORD = handle(bellmanFord, "run", graph);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Routers() {
+    }
+
+    /**
+     * To look up a method and erase its package-private types to Object
+     */
+    private static MethodHandle handle(Class<?> owner, String name, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        Method method = owner.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        return handle.asType(handle.type().erase());
+    }
+
+    /**
+     * To look up a constructor and erase its types to Object
+     */
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        Constructor<?> constructor = owner.getDeclaredConstructor(parameters);
+        constructor.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+        return handle.asType(handle.type().erase());
+    }
+
+    /**
+     * @param messagesFile messages file, or null to leave them out
+     * @return Snapshot parsed from the text files, as the routers read them
+     */
+    static Object fromText(String topologyFile, String messagesFile) throws Throwable {
+        return (Object) FROM_TEXT.invokeExact((Object) topologyFile, (Object) null, (Object) messagesFile);
+    }
+
+    static int getOffset(Object snapshot) throws Throwable {
+        return (int) GET_OFFSET.invokeExact(snapshot);
+    }
+
+    static Object getGraph(Object snapshot) throws Throwable {
+        return (Object) GET_GRAPH.invokeExact(snapshot);
+    }
+
+    static Object getMessages(Object snapshot) throws Throwable {
+        return (Object) GET_MESSAGES.invokeExact(snapshot);
+    }
+
+    static Object newDijkstraEngine(int numberOfNodes) throws Throwable {
+        return (Object) NEW_DIJKSTRA.invokeExact(numberOfNodes);
+    }
+
+    /**
+     * @param source source router (0-based)
+     */
+    static void runDijkstra(Object engine, Object graph, int source) throws Throwable {
+        RUN_DIJKSTRA.invokeExact(engine, graph, source);
+    }
+
+    static int[] getDistances(Object engine) throws Throwable {
+        return (int[]) (Object) GET_DISTANCES.invokeExact(engine);
+    }
+
+    static int[] getPredecessors(Object engine) throws Throwable {
+        return (int[]) (Object) GET_PREDECESSORS.invokeExact(engine);
+    }
+
+    static int[] getOrder(Object engine) throws Throwable {
+        return (int[]) (Object) GET_ORDER.invokeExact(engine);
+    }
+
+    static int getSettledCount(Object engine) throws Throwable {
+        return (int) GET_SETTLED_COUNT.invokeExact(engine);
+    }
+
+    /**
+     * @param source source router (1-based, as lsrouter passes it)
+     */
+    static void computeFirstHops(int source, int[] pred, int[] order, int count, int[] firstHop) throws Throwable {
+        COMPUTE_FIRST_HOPS.invokeExact(source, (Object) pred, (Object) order, count, (Object) firstHop);
+    }
+
+    static Object newForwardingTable(int numberOfNodes) throws Throwable {
+        return (Object) NEW_TABLE.invokeExact(numberOfNodes);
+    }
+
+    /**
+     * @param source source router (0-based)
+     */
+    static void setRow(Object table, int source, int[] nextHop, int[] cost) throws Throwable {
+        SET_ROW.invokeExact(table, source, (Object) nextHop, (Object) cost);
+    }
+
+    static void printTable(Object table, Object out, int offset) throws Throwable {
+        PRINT_TABLE.invokeExact(table, out, offset);
+    }
+
+    /**
+     * @param messages MessageFile of a snapshot
+     */
+    static Object newMessageRouter(Object messages) throws Throwable {
+        return (Object) NEW_MESSAGE_ROUTER.invokeExact(messages);
+    }
+
+    static void routeMessages(Object messageRouter, Object out, Object table, int offset) throws Throwable {
+        ROUTE_MESSAGES.invokeExact(messageRouter, out, table, offset);
+    }
+
+    /**
+     * @return an in-memory OutputBuffer
+     */
+    static Object newOutputBuffer() throws Throwable {
+        return (Object) NEW_OUTPUT.invokeExact();
+    }
+
+    static void clear(Object out) throws Throwable {
+        CLEAR_OUTPUT.invokeExact(out);
+    }
+
+    /**
+     * @return a BellmanFordEngine with no workers
+     */
+    static Object newBellmanFordEngine(int numberOfNodes) throws Throwable {
+        return (Object) NEW_BELLMAN_FORD.invokeExact(numberOfNodes, (Object) null, 1);
+    }
+
+    static void runBellmanFord(Object engine, Object graph) throws Throwable {
+        RUN_BELLMAN_FORD.invokeExact(engine, graph);
+    }
+}
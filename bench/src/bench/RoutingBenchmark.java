@@ -0,0 +1,174 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: RoutingBenchmark.java
+ * description: To time the routing hot paths of lsrouter and dvrouter with JMH.
+ */
+package bench;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RoutingBenchmark times the routing hot paths on every graph family and size.
+ * Throughput mode gives operations per second and SampleTime mode gives the
+ * latency percentiles; run with -prof gc for the allocation rate (see the
+ * bench target of the Makefile).
+ *
+ * The topology and messages files are written once per trial, and every
+ * benchmark times one step the routers run for each state of the network:
+ * parsing the files from their mappings (Snapshot.fromText), one
+ * DijkstraEngine run, one forwarding table row from a tree (computeFirstHops
+ * and setRow), the whole table as lsrouter fills it, printing the table,
+ * routing the messages through it (MessageRouter.print), and one full
+ * distance-vector convergence (BellmanFordEngine.run). Output goes to an
+ * in-memory OutputBuffer, cleared before each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class RoutingBenchmark {
+    // messages per router in the messages file
+    private static final int MESSAGES_PER_ROUTER = 4;
+
+    @Param({ "ring", "grid", "sparse", "dense", "scalefree" })
+    public String family;
+
+    @Param({ "64", "256", "1024" })
+    public int size;
+
+    private File topologyFile;
+    private File messagesFile;
+    private int offset;
+    private int numberOfNodes;
+    private Object graph;
+    private Object dijkstra;
+    // tree of the first router, for one forwarding table row
+    private int[] distances, predecessors, order;
+    private int settled;
+    private int[] firstHop;
+    // table of every router, filled once for the printing benchmarks
+    private Object table;
+    private Object messageRouter;
+    private Object out;
+    private Object bellmanFord;
+    // router the next dijkstra runs from, so every source gets its turn
+    private int source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        topologyFile = File.createTempFile("topology-" + family + "-" + size + "-", ".txt");
+        GraphFamilies.write(family, size, topologyFile);
+        messagesFile = File.createTempFile("messages-" + family + "-" + size + "-", ".txt");
+        writeMessages(size, messagesFile);
+        Object input = Routers.fromText(topologyFile.getPath(), messagesFile.getPath());
+        // the families number their routers from 1, so nothing is shifted
+        offset = Routers.getOffset(input);
+        graph = Routers.getGraph(input);
+        numberOfNodes = size;
+        dijkstra = Routers.newDijkstraEngine(numberOfNodes);
+        Routers.runDijkstra(dijkstra, graph, 0);
+        distances = Routers.getDistances(dijkstra).clone();
+        predecessors = Routers.getPredecessors(dijkstra).clone();
+        order = Routers.getOrder(dijkstra).clone();
+        settled = Routers.getSettledCount(dijkstra);
+        firstHop = new int[numberOfNodes];
+        table = Routers.newForwardingTable(numberOfNodes);
+        forwardingTable();
+        messageRouter = Routers.newMessageRouter(Routers.getMessages(input));
+        out = Routers.newOutputBuffer();
+        bellmanFord = Routers.newBellmanFordEngine(numberOfNodes);
+        source = 0;
+    }
+
+    /**
+     * To write messages between routers drawn with a fixed seed
+     */
+    private static void writeMessages(int numberOfNodes, File file) throws FileNotFoundException {
+        Random random = new Random(7);
+        PrintWriter writer = new PrintWriter(file);
+        for (int i = 0; i < MESSAGES_PER_ROUTER * numberOfNodes; i++) {
+            writer.println((1 + random.nextInt(numberOfNodes)) + " " + (1 + random.nextInt(numberOfNodes))
+                    + " benchmark message " + i);
+        }
+        writer.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        topologyFile.delete();
+        messagesFile.delete();
+    }
+
+    @Benchmark
+    public Object parse() throws Throwable {
+        return Routers.fromText(topologyFile.getPath(), messagesFile.getPath());
+    }
+
+    @Benchmark
+    public Object dijkstra() throws Throwable {
+        source = source == numberOfNodes - 1 ? 0 : source + 1;
+        Routers.runDijkstra(dijkstra, graph, source);
+        return dijkstra;
+    }
+
+    @Benchmark
+    public Object forwardingRow() throws Throwable {
+        // every family is connected, so the costs are the distances as they are
+        Routers.computeFirstHops(1, predecessors, order, settled, firstHop);
+        Routers.setRow(table, 0, firstHop, distances);
+        return table;
+    }
+
+    @Benchmark
+    public Object forwardingTable() throws Throwable {
+        // as lsrouter fills it on one thread: a run and a row for every router
+        for (int s = 0; s < numberOfNodes; s++) {
+            Routers.runDijkstra(dijkstra, graph, s);
+            Routers.computeFirstHops(s + 1, Routers.getPredecessors(dijkstra), Routers.getOrder(dijkstra),
+                    Routers.getSettledCount(dijkstra), firstHop);
+            Routers.setRow(table, s, firstHop, Routers.getDistances(dijkstra));
+        }
+        return table;
+    }
+
+    @Benchmark
+    public Object printTable() throws Throwable {
+        Routers.clear(out);
+        Routers.printTable(table, out, offset);
+        return out;
+    }
+
+    @Benchmark
+    public Object routeMessages() throws Throwable {
+        Routers.clear(out);
+        Routers.routeMessages(messageRouter, out, table, offset);
+        return out;
+    }
+
+    @Benchmark
+    public Object distanceVector() throws Throwable {
+        Routers.runBellmanFord(bellmanFord, graph);
+        return bellmanFord;
+    }
+}
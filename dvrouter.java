@@ -1,17 +1,13 @@
 
 /**
  * author: Andrew Smith
- * last edited: 12/05/19
+ * last edited: 10/17/26
  * file: dvrouter.java
  * description: To simulate a network (graph) of routers and the Bellman-Ford algorithm. The topology file must have line-by-line entries of the form <src> <dest> <cost>. The changes file must have the same format. The messages file must have line-by-line entries of the form <src> <dest> <message>.
  */
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class utilizes the distance-vector algorithm, also known as the
@@ -20,212 +16,335 @@ import java.util.Map;
  * costs and how that may effect message path.
  */
 public class dvrouter {
-    private static PrintWriter printWriter;
-    private static final String OUTPUT_FILE = "output.txt";
+    private static OutputBuffer output;
+    // workers rebuilding distance vectors in parallel (null runs them serially)
+    private static ExecutorService workers;
+    private static int numberOfWorkers = 1;
+    // report convergence rounds and message rate
+    private static boolean verbose;
+    // vectors of the last run, reused by the next one
+    private static BellmanFordEngine engine;
+    // costs above this count as unreachable, 0 for the sum of all link costs
+    private static int infinity;
+    // converge from scratch with a worklist instead of rounds
+    private static boolean spfa;
+    // routes the messages in one batch per state of the network
+    private static MessageRouter messageRouter;
+    // prints the states after the first as deltas (null prints them in full)
+    private static DeltaOutput delta;
+    // the actors or the incremental vectors, if the run re-converged with them
+    // instead of the engine, which go on routing the changes --serve takes
+    private static ActorDistanceVector network;
+    private static IncrementalDistanceVector vectors;
 
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         // check args
-        if (!(args.length == 3)) {
-            System.out.println("Usage: java dvrouter <topofile> <changesfile> <messagefile>");
-            System.exit(0);
-        }
-        // init PrintWriter to write to file
-        printWriter = new PrintWriter(new FileOutputStream(OUTPUT_FILE));
-        // get files
-        List<Link> initialTopology = AlgorithmUtils.getTopology(args[0]);
-        // To get offset (see AlgorithmUtils for explanation)
-        int offset = AlgorithmUtils.getOffset(initialTopology);
-        // get changes file
-        List<Link> changes = AlgorithmUtils.getTopology(args[1]);
-        // apply offset
-        for (Link link : changes) {
-            link.setSrc(link.getSrc() + (1 - offset));
-            link.setDest(link.getDest() + (1 - offset));
+        RouterOptions options = RouterOptions.parse("dvrouter", args);
+        // init buffer to write to file
+        output = new OutputBuffer(options.getOutputFile());
+        verbose = options.isVerbose();
+        infinity = options.getInfinity();
+        spfa = options.isSpfa();
+        if (options.getThreads() > 1) {
+            numberOfWorkers = options.getThreads();
+            workers = Executors.newFixedThreadPool(numberOfWorkers);
+        }
+        if (options.getMetricsFile() != null) {
+            Metrics.start("dvrouter", options.getMetricsFile());
         }
-        // get messages file
-        List<Message> messages = AlgorithmUtils.getMessages(args[2]);
+        // read the input files (or snapshot) straight from memory mappings
+        Snapshot input;
+        long begin = Metrics.begin();
+        try {
+            input = Snapshot.load(options);
+        } catch (IllegalArgumentException e) {
+            // malformed line, named with its file and line number, or bad snapshot
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Metrics.end(Metrics.PARSE, begin);
+        // get offset (see AlgorithmUtils for explanation)
+        int offset = input.getOffset();
+        LinkFile changes = input.getChanges();
+        MessageFile messageFile = input.getMessages();
         // apply offset
-        for (Message message : messages) {
-            message.setSrc(message.getSrc() + (1 - offset));
-            message.setDest(message.getDest() + (1 - offset));
+        changes.shift(1 - offset);
+        messageFile.shift(1 - offset);
+        // grouped by source and destination once, for every state below
+        messageRouter = new MessageRouter(messageFile);
+        // changes applied together, routing once for each batch
+        ChangeBatches epochs;
+        try {
+            epochs = new ChangeBatches(changes, options.getBatch(), options.getBatchWindow());
+        } catch (IllegalArgumentException e) {
+            // window without times
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        // initial topology as a sparse graph
+        CsrGraph graph = input.getGraph();
+        try {
+            // every router's vector to every router, n * n entries in one array
+            BellmanFordEngine.checkSize(graph.getNumberOfNodes());
+        } catch (IllegalArgumentException e) {
+            // too many routers
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (options.isDelta()) {
+            delta = new DeltaOutput(ForwardingTable.onHeap(graph.getNumberOfNodes()), messageRouter);
+        }
+        if (options.isActors()) {
+            // every router an actor, changes sent to the ends of the link as events
+            int threads = options.getThreads() > 1 ? options.getThreads() : 0;
+            ExecutorService executor = ActorDistanceVector.newExecutor(threads);
+            network = new ActorDistanceVector(graph, executor);
+            if (verbose) {
+                AlgorithmUtils.p(graph.getNumberOfNodes() + " actors on "
+                        + (ActorDistanceVector.isVirtual(executor) ? "virtual threads" : "a ForkJoinPool"));
+            }
+            network.start();
+            printActorsToFile(network, offset);
+            for (int e = 0; e < epochs.getCount(); e++) {
+                LinkFile epoch = epochs.coalesce(e, graph);
+                for (int c = 0; c < epoch.getCount(); c++) {
+                    int oldCost = AlgorithmUtils.applyChange(graph, epoch.getSrc(c), epoch.getDest(c),
+                            epoch.getCost(c));
+                    network.applyChange(epoch.getSrc(c) - 1, epoch.getDest(c) - 1, oldCost);
+                }
+                printActorsToFile(network, offset);
+            }
+            finish(options, graph, offset);
+            executor.shutdown();
+            return;
+        }
+        if (options.getPolicy() != -1) {
+            // converge once, then re-converge warm from the vectors routers have
+            BellmanFordEngine dv = distanceVector(graph);
+            dv.setPolicy(options.getPolicy());
+            printToFile(dv.getNumberOfNodes(), dv.getCosts(), dv.getThroughs(), offset);
+            for (int e = 0; e < epochs.getCount(); e++) {
+                // every link of the batch changes before the vectors re-converge once
+                LinkFile epoch = epochs.coalesce(e, graph);
+                for (int c = 0; c < epoch.getCount(); c++) {
+                    AlgorithmUtils.applyChange(graph, epoch.getSrc(c), epoch.getDest(c), epoch.getCost(c));
+                }
+                dv.update(graph);
+                if (verbose) {
+                    int c = epochs.getFirst(e);
+                    if (epochs.getSize(e) == 1) {
+                        AlgorithmUtils.p("change " + (c + 1) + " (" + (changes.getSrc(c) - (1 - offset)) + " "
+                                + (changes.getDest(c) - (1 - offset)) + " " + changes.getCost(c) + "): "
+                                + dv.getStats());
+                    } else {
+                        AlgorithmUtils.p("changes " + (c + 1) + " to " + (c + epochs.getSize(e)) + " ("
+                                + epoch.getCount() + " links): " + dv.getStats());
+                    }
+                }
+                printToFile(dv.getNumberOfNodes(), dv.getCosts(), dv.getThroughs(), offset);
+            }
+            finish(options, graph, offset);
+            return;
+        }
+        if (options.isIncremental()) {
+            // converge once, then re-converge from the ends of each changed link
+            BellmanFordEngine dv = distanceVector(graph);
+            vectors = new IncrementalDistanceVector(dv.getNumberOfNodes(), dv.getCosts(), dv.getThroughs());
+            int n = vectors.getNumberOfNodes();
+            printToFile(n, vectors.getCosts(), vectors.getThroughs(), offset);
+            for (int e = 0; e < epochs.getCount(); e++) {
+                LinkFile epoch = epochs.coalesce(e, graph);
+                for (int c = 0; c < epoch.getCount(); c++) {
+                    int oldCost = AlgorithmUtils.applyChange(graph, epoch.getSrc(c), epoch.getDest(c),
+                            epoch.getCost(c));
+                    vectors.applyChange(graph, epoch.getSrc(c) - 1, epoch.getDest(c) - 1, oldCost);
+                }
+                printToFile(n, vectors.getCosts(), vectors.getThroughs(), offset);
+            }
+            finish(options, graph, offset);
+            return;
         }
-        // initial topology in adjacency matrix format
-        int[][] adjacencyMatrix = AlgorithmUtils.getAdjacencyMatrix(initialTopology, offset);
         // Control iteration of forwarding tables and message-simulating for each router
-        printToFile(adjacencyMatrix, messages, offset);
+        printToFile(graph, offset);
         // An iteration of forwarding tables and message-simulating for each router for
-        // each change in the changes file
-        for (Link change : changes) {
-            // network topology after applying this change
-            adjacencyMatrix = AlgorithmUtils.applyChange(adjacencyMatrix, change);
+        // each batch of changes in the changes file
+        for (int e = 0; e < epochs.getCount(); e++) {
+            // network topology after applying this batch
+            LinkFile epoch = epochs.coalesce(e, graph);
+            for (int c = 0; c < epoch.getCount(); c++) {
+                AlgorithmUtils.applyChange(graph, epoch.getSrc(c), epoch.getDest(c), epoch.getCost(c));
+            }
             // actual iteration
-            printToFile(adjacencyMatrix, messages, offset);
+            printToFile(graph, offset);
         }
-        // close stream
-        printWriter.close();
+        finish(options, graph, offset);
     }
 
     /**
-     * Bellman-Ford. Unlike Dijkstra, this algorithm has no source.
-     * 
-     * @param adjacencyMatrix adjacency matrix of network to run algorithm on
-     * @return proprietary format of distance vectors for each node in the network
+     * To serve the last state if asked to, then close the output stream and
+     * stop the workers. The daemon starts from the vectors of the last state,
+     * and each batch of changes it takes is routed as the run routed them: by
+     * the actors, the incremental vectors, or the BellmanFordEngine, warm with
+     * --policy and from scratch otherwise.
      */
-    public static Map<Integer, List<Distance>> distanceVector(int[][] adjacencyMatrix) {
-        Map<Integer, List<Distance>> distanceVectors = new HashMap<Integer, List<Distance>>();
-        Map<Integer, List<Distance>> initialDistanceVectors = new HashMap<Integer, List<Distance>>();
-        // to get initial distance vectors
-        for (int i = 0; i < adjacencyMatrix.length; i++) {
-            List<Distance> vector = new ArrayList<Distance>();
-            for (int j = 0; j < adjacencyMatrix.length; j++) {
-                if (j == i) {
-                    vector.add(new Distance(i, 0));
-                } else if (adjacencyMatrix[i][j] == 0) {
-                    vector.add(new Distance(i, -1));
-                } else {
-                    vector.add(new Distance(j, adjacencyMatrix[i][j]));
-                }
-            }
-            distanceVectors.put(i, vector);
-            initialDistanceVectors.put(i, vector);
-        }
-        boolean change = true;
-        // interate until convergence
-        while (change) {
-            change = false;
-
-            for (int i = 0; i < adjacencyMatrix.length; i++) {
-                List<Distance> newVector = new ArrayList<Distance>();
-                // get adjacent vectors
-                List<Integer> adjacentVectors = new ArrayList<Integer>();
-                for (int j = 0; j < adjacencyMatrix.length; j++) {
-                    if (adjacencyMatrix[i][j] > 0) {
-                        adjacentVectors.add(j);
-                    }
-                }
-                for (int j = 0; j < distanceVectors.get(i).size(); j++) {
-                    int min = distanceVectors.get(i).get(j).getCost();
-                    int through = distanceVectors.get(i).get(j).getThrough();
-                    for (Integer integer : adjacentVectors) {
-
-                        if (distanceVectors.get(integer).get(j).getCost() == -1) {
-                            // cant reach from this vector
-                            continue;
-                        } else if (min == -1) {
-                            change = true;
-                            min = distanceVectors.get(integer).get(j).getCost()
-                                    + distanceVectors.get(i).get(integer).getCost();
-                            Distance temp = distanceVectors.get(integer).get(i);
-                            int last = integer;
-                            while (!(i == temp.getThrough())) {
-                                last = temp.getThrough();
-                                temp = distanceVectors.get(temp.getThrough()).get(i);
-                            }
-                            through = last;
-                            // found less expensive route
-                        } else if ((distanceVectors.get(integer).get(j).getCost()
-                                + distanceVectors.get(i).get(integer).getCost()) < min) {
-                            // update
-                            change = true;
-                            min = distanceVectors.get(integer).get(j).getCost()
-                                    + distanceVectors.get(i).get(integer).getCost();
-                            Distance temp = distanceVectors.get(integer).get(i);
-                            int last = integer;
-                            while (!(i == temp.getThrough())) {
-                                last = temp.getThrough();
-                                temp = distanceVectors.get(temp.getThrough()).get(i);
-
+    private static void finish(RouterOptions options, final CsrGraph graph, int offset) throws IOException {
+        boolean failed = false;
+        if (options.getServeAddress() != null) {
+            output.flush();
+            final boolean warm = options.getPolicy() != -1;
+            int n = graph.getNumberOfNodes();
+            // the engines write their vectors in place, so the daemon keeps copies
+            ForwardingTable initial = ForwardingTable.onHeap(n);
+            copyVectors(initial);
+            RouterDaemon daemon = new RouterDaemon(graph, offset, initial, ForwardingTable.onHeap(n),
+                    new RouterDaemon.Router() {
+                        public void apply(LinkFile changes, ForwardingTable table) {
+                            for (int c = 0; c < changes.getCount(); c++) {
+                                int oldCost = AlgorithmUtils.applyChange(graph, changes.getSrc(c),
+                                        changes.getDest(c), changes.getCost(c));
+                                if (network != null) {
+                                    network.applyChange(changes.getSrc(c) - 1, changes.getDest(c) - 1, oldCost);
+                                } else if (vectors != null) {
+                                    vectors.applyChange(graph, changes.getSrc(c) - 1, changes.getDest(c) - 1,
+                                            oldCost);
+                                }
                             }
-                            through = last;
-                            // Tie break condition
-                        } else if ((distanceVectors.get(integer).get(j).getCost()
-                                + initialDistanceVectors.get(i).get(integer).getCost()) == min) {
-                            // need next hop of current path compared to integer
-                            if (integer < through) {
-                                change = true;
-                                through = integer;
+                            if (network == null && vectors == null) {
+                                if (warm) {
+                                    engine.update(graph);
+                                } else {
+                                    distanceVector(graph);
+                                }
                             }
+                            copyVectors(table);
                         }
-                    }
-                    newVector.add(new Distance(through, min));
-
-                }
-                // each iteration here
-                distanceVectors.put(i, newVector);
+                    });
+            daemon.serve(options.getServeAddress());
+            if (verbose) {
+                AlgorithmUtils.p(daemon.getStats());
             }
+            failed = daemon.hasFailed();
+        }
+        close();
+        if (failed) {
+            // reported by the daemon
+            System.exit(1);
         }
-        // convergence here
-        return distanceVectors;
-        // now print messages, apply change, run again
     }
 
     /**
-     * Run's least-cost algorithm and handles file printing format
-     * 
-     * @param adjacencyMatrix adjacency matrix to run algorithm on
-     * @param messages        messages to simulate path with
+     * To copy the vectors of the last state into a forwarding table
      */
-    public static void printToFile(int[][] adjacencyMatrix, List<Message> messages, int offset) {
+    private static void copyVectors(ForwardingTable table) {
+        if (network != null) {
+            table.setAll(network.getThroughs(), network.getCosts());
+        } else if (vectors != null) {
+            table.setAll(vectors.getThroughs(), vectors.getCosts());
+        } else {
+            table.setAll(engine.getThroughs(), engine.getCosts());
+        }
+    }
 
-        Map<Integer, List<Distance>> dv = distanceVector(adjacencyMatrix);
-        // each table
-        for (Map.Entry<Integer, List<Distance>> entry : dv.entrySet()) {
-            String table = "";
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                table = table + ((i + 1) - (1 - offset)) + " "
-                        + (entry.getValue().get(i).getThrough() + 1 - (1 - offset)) + " "
-                        + entry.getValue().get(i).getCost() + "\n";
+    /**
+     * To close the output stream and stop the workers
+     */
+    private static void close() {
+        if (verbose) {
+            AlgorithmUtils.p(messageRouter.getStats());
+            if (delta != null) {
+                AlgorithmUtils.p(delta.getStats());
             }
-            printWriter.println(table);
         }
-        for (Message message : messages) {
-            printWriter.println(getMessageEntry(dv, dv.get(message.getSrc() - 1), message, offset));
+        output.close();
+        Metrics.finish();
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Bellman-Ford. Unlike Dijkstra, this algorithm has no source. Runs on the
+     * flat, double-buffered BellmanFordEngine, whose arrays are kept for the next
+     * call.
+     * 
+     * @param graph graph of network to run algorithm on
+     * @return engine holding the converged distance vectors of every node in the
+     *         network
+     */
+    public static BellmanFordEngine distanceVector(CsrGraph graph) {
+        if (engine == null || engine.getNumberOfNodes() != graph.getNumberOfNodes()) {
+            engine = new BellmanFordEngine(graph.getNumberOfNodes(), workers, numberOfWorkers);
+            engine.setInfinity(infinity);
+            engine.setWorklist(spfa);
+        }
+        engine.run(graph);
+        if (verbose) {
+            AlgorithmUtils.p("distance vectors converged: " + engine.getStats());
         }
+        // convergence here
+        return engine;
     }
 
     /**
-     * gets path for message and formats into string to be output
+     * Run's least-cost algorithm and handles file printing format
      * 
-     * @param distanceVectors        Map of distance vectors
-     * @param distanceVectorOfSource distance vector of source (could be replaced by
-     *                               source key, obviously)
-     * @param msg                    message to send
-     * @return formatted output string for file
+     * @param graph graph to run algorithm on
      */
-    public static String getMessageEntry(Map<Integer, List<Distance>> distanceVectors,
-            List<Distance> distanceVectorOfSource, Message msg, int offset) {
-        String ret = "";
-        List<Integer> hops = new ArrayList<Integer>();
-        hops.add(msg.getSrc() - (1 - offset));
-        Distance temp = distanceVectorOfSource.get(msg.getDest() - 1);
-        while (!(temp.getThrough() == (msg.getDest() - 1))) {
-            hops.add(temp.getThrough() + 1 - (1 - offset));
-            temp = distanceVectors.get(temp.getThrough()).get(msg.getDest() - 1);
+    public static void printToFile(CsrGraph graph, int offset) {
+        BellmanFordEngine dv = distanceVector(graph);
+        printToFile(dv.getNumberOfNodes(), dv.getCosts(), dv.getThroughs(), offset);
+    }
 
+    /**
+     * Handles file printing format for converged vectors, which are read as the
+     * forwarding table without copying them
+     * 
+     * @param numberOfNodes number of routers
+     * @param cost          cost of entry (i, j) at index i * n + j, -1 if j cannot
+     *                      be reached
+     * @param through       next hop of entry (i, j) at index i * n + j
+     */
+    public static void printToFile(int numberOfNodes, int[] cost, int[] through, int offset) {
+        ForwardingTable table = ForwardingTable.wrap(numberOfNodes, through, cost);
+        if (delta != null) {
+            // only what changed since the last state
+            delta.print(output, table, offset);
+        } else {
+            // each table
+            table.print(output, offset);
+            messageRouter.print(output, table, offset);
         }
-        hops.add(msg.getDest() - (1 - offset));
+        Metrics.endEpoch();
+    }
 
-        ret = ret + "from " + (msg.getSrc() - (1 - offset)) + " to " + (msg.getDest() - (1 - offset)) + ": hops";
-        for (int i = 0; i < hops.size(); i++) {
-            ret = ret + " " + (hops.get(i)) + "";
+    /**
+     * Handles file printing format for vectors converged by the actors
+     * 
+     * @param network converged actors
+     */
+    private static void printActorsToFile(ActorDistanceVector network, int offset) {
+        if (verbose) {
+            AlgorithmUtils.p(network.getStats());
         }
-        ret = ret + "; message: " + msg.getMsg() + "\n";
-        return ret;
+        printToFile(network.getNumberOfNodes(), network.getCosts(), network.getThroughs(), offset);
     }
 
     /**
      * To pretty-print distance vectors
      * 
-     * @param distanceVectors distance vectors to pretty-print
+     * @param numberOfNodes number of routers
+     * @param cost          cost of entry (i, j) at index i * n + j
+     * @param through       next hop of entry (i, j) at index i * n + j
      */
-    public static void printDistanceVectors(Map<Integer, List<Distance>> distanceVectors) {
-        // print
-        int j = 0;
-        for (Map.Entry<Integer, List<Distance>> entry : distanceVectors.entrySet()) {
-            System.out.print((j++) + "< ");
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                System.out.print(
-                        "( " + entry.getValue().get(i).getCost() + ", " + entry.getValue().get(i).getThrough() + " ) ");
+    public static void printDistanceVectors(int numberOfNodes, int[] cost, int[] through) {
+        for (int j = 0; j < numberOfNodes; j++) {
+            System.out.print(j + "< ");
+            for (int i = 0; i < numberOfNodes; i++) {
+                System.out.print("( " + cost[j * numberOfNodes + i] + ", " + through[j * numberOfNodes + i] + " ) ");
             }
             AlgorithmUtils.p(">");
         }
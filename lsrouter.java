@@ -1,17 +1,19 @@
 
 /**
  * author: Andrew Smith
- * last edited: 12/05/19
+ * last edited: 10/17/26
  * file: lsrouter.java
  * description: To simulate a network (graph) of routers and Dijkstra's algorithm. The topology file must have line-by-line entries of the form <src> <dest> <cost>. The changes file must have the same format. The messages file must have line-by-line entries of the form <src> <dest> <message>.
  */
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * This class utilizes Dijkstra's algorithm to produce a forwarding table for a
@@ -20,298 +22,524 @@ import java.util.Map;
  */
 public class lsrouter {
     // handle printing to file
-    private static PrintWriter printWriter;
-    // path to output file
-    private static final String OUTPUT_FILE = "output.txt";
+    private static OutputBuffer output;
+    // workers computing forwarding tables in parallel (null runs them serially)
+    private static ExecutorService workers;
+    private static int numberOfWorkers = 1;
+    // computes one source at a time on every thread (null runs Dijkstra)
+    private static DeltaSteppingEngine deltaStepping;
+    // next hop and cost from every router to every other, read by the printer
+    // and the messages
+    private static ForwardingTable table;
+    // least-cost trees by source, kept across messages and changes (null if off)
+    private static RouteCache routeCache;
+    // every router's tree, if the run repaired them with --incremental, which go
+    // on routing the changes --serve takes
+    private static IncrementalShortestPaths paths;
+    // routes the messages in one batch per state of the network
+    private static MessageRouter messageRouter;
+    // prints the states after the first as deltas (null prints them in full)
+    private static DeltaOutput delta;
+    // report what the route cache and message router did
+    private static boolean verbose;
 
-    public static void main(String[] args) throws FileNotFoundException {
-        // Check for correct number of arguments
-        if (!(args.length == 3)) {
-            System.out.println("Usage: java lsrouter <topofile> <changesfile> <messagefile>");
-            System.exit(0);
+    public static void main(String[] args) throws IOException {
+        // Check for correct arguments
+        RouterOptions options = RouterOptions.parse("lsrouter", args);
+        // init buffer in front of the output file
+        output = new OutputBuffer(options.getOutputFile());
+        verbose = options.isVerbose();
+        // start the workers for the all-sources phase, unless they work on one
+        // source at a time
+        if (options.getThreads() > 1 && options.getDeltaSteppingWidth() < 0) {
+            numberOfWorkers = options.getThreads();
+            workers = Executors.newFixedThreadPool(numberOfWorkers);
         }
-        // init printwriter to output file
-        printWriter = new PrintWriter(new FileOutputStream(OUTPUT_FILE));
-        // get initial toppology from file -> initialTopology
-        List<Link> initialTopology = AlgorithmUtils.getTopology(args[0]);
-        // get offset (see AlgorithmUtils for explanation)
-        int offset = AlgorithmUtils.getOffset(initialTopology);
-        // get changes file -> changes
-        List<Link> changes = AlgorithmUtils.getTopology(args[1]);
-        // apply offset
-        for (Link link : changes) {
-            link.setSrc(link.getSrc() + (1 - offset));
-            link.setDest(link.getDest() + (1 - offset));
+        if (options.getCacheMegabytes() > 0) {
+            routeCache = new RouteCache((long) options.getCacheMegabytes() << 20);
+        }
+        if (options.getMetricsFile() != null) {
+            Metrics.start("lsrouter", options.getMetricsFile());
         }
-        // get messages file -> messages
-        List<Message> messages = AlgorithmUtils.getMessages(args[2]);
+        // read the input files (or snapshot) straight from memory mappings
+        Snapshot input;
+        long begin = Metrics.begin();
+        try {
+            input = Snapshot.load(options);
+        } catch (IllegalArgumentException e) {
+            // malformed line, named with its file and line number, or bad snapshot
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Metrics.end(Metrics.PARSE, begin);
+        // get offset (see AlgorithmUtils for explanation)
+        int offset = input.getOffset();
+        LinkFile changes = input.getChanges();
+        MessageFile messageFile = input.getMessages();
         // apply offset
-        for (Message message : messages) {
-            message.setSrc(message.getSrc() + (1 - offset));
-            message.setDest(message.getDest() + (1 - offset));
+        changes.shift(1 - offset);
+        messageFile.shift(1 - offset);
+        // grouped by source and destination once, for every state below
+        messageRouter = new MessageRouter(messageFile);
+        // changes applied together, routing once for each batch
+        ChangeBatches epochs;
+        try {
+            epochs = new ChangeBatches(changes, options.getBatch(), options.getBatchWindow());
+        } catch (IllegalArgumentException e) {
+            // window without times
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
         }
 
-        // format initial topology as adjacency matrix
-        int[][] adjacencyMatrix = AlgorithmUtils.getAdjacencyMatrix(initialTopology, offset);
+        // format initial topology as a sparse graph
+        CsrGraph graph = input.getGraph();
+        if (options.getDeltaSteppingWidth() >= 0) {
+            deltaStepping = new DeltaSteppingEngine(graph.getNumberOfNodes(), options.getDeltaSteppingWidth(),
+                    new ForkJoinPool(options.getThreads()));
+        }
+        try {
+            String storage = options.getForwardingTableStorage();
+            table = ForwardingTable.create(graph.getNumberOfNodes(), storage);
+            if (options.isDelta()) {
+                // the last state printed, kept the same way as the table
+                delta = new DeltaOutput(ForwardingTable.create(graph.getNumberOfNodes(),
+                        storage.startsWith("mmap:") ? storage + ".previous" : storage), messageRouter);
+            }
+        } catch (IllegalArgumentException e) {
+            // too many routers for the heap
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (options.isIncremental()) {
+            // keep every router's tree and only repair what each change touches
+            paths = new IncrementalShortestPaths(graph);
+            printTreesToFile(paths, offset);
+            for (int e = 0; e < epochs.getCount(); e++) {
+                LinkFile epoch = epochs.coalesce(e, graph);
+                for (int c = 0; c < epoch.getCount(); c++) {
+                    int oldCost = AlgorithmUtils.applyChange(graph, epoch.getSrc(c), epoch.getDest(c),
+                            epoch.getCost(c));
+                    paths.applyChange(graph, epoch.getSrc(c) - 1, epoch.getDest(c) - 1, oldCost);
+                }
+                printTreesToFile(paths, offset);
+            }
+            finish(options, graph, offset);
+            return;
+        }
         // wrapper that handles printing and running Dijkstra
-        runDijkstraAndPrintToFile(adjacencyMatrix, messages, offset);
-        // now re-run for all changes in changes file
-        for (Link change : changes) {
+        runDijkstraAndPrintToFile(graph, offset);
+        // now re-run for each batch of changes in changes file
+        for (int e = 0; e < epochs.getCount(); e++) {
             // get new topology
-            adjacencyMatrix = AlgorithmUtils.applyChange(adjacencyMatrix, change);
+            applyChanges(graph, epochs.coalesce(e, graph));
             // handle printing and run Dijkstra on new topology
-            runDijkstraAndPrintToFile(adjacencyMatrix, messages, offset);
+            runDijkstraAndPrintToFile(graph, offset);
+        }
+        if (routeCache != null && verbose) {
+            AlgorithmUtils.p(routeCache.getStats());
         }
-        // close stream
-        printWriter.close();
+        finish(options, graph, offset);
     }
 
     /**
-     * Run's least-cost algorithm and handles file printing format
-     * 
-     * @param adjacencyMatrix adjacency matrix to run algorithm on
-     * @param messages        messages to simulate path with
+     * To apply a batch of changes to the network, forgetting the cached trees
+     * each change can alter
+     *
+     * @param graph   network topology
+     * @param changes changes, 1-based
      */
-    public static void runDijkstraAndPrintToFile(int[][] adjacencyMatrix, List<Message> messages, int offset) {
-        // Run Dijkstra for every router
-        for (int i = 1; i <= adjacencyMatrix.length; i++) {
-            // get 'nprime' list from Dijkstra (actually a tree)
-            List<Link> nprime = dijkstra(adjacencyMatrix, i);
-            // get adjacencyMatrix for nearest neighbor tree as a result of Dijkstra from
-            // source i
-            int[][] nprimeAdj = AlgorithmUtils.getNPrimeAdjacencyMatrix(nprime);
-            // print forwarding table for this router to output file
-            printWriter.println(getForwardingEntries(nprime, nprimeAdj.length, offset));
-        }
-        // for each message in message file
-        for (Message message : messages) {
-            // simulate sending each message and print hops to output file
-            // System.out.println("--------------messages--------------");
-            printWriter.println(getMessageEntry(adjacencyMatrix, message, offset));
+    private static void applyChanges(CsrGraph graph, LinkFile changes) {
+        for (int c = 0; c < changes.getCount(); c++) {
+            int oldCost = AlgorithmUtils.applyChange(graph, changes.getSrc(c), changes.getDest(c),
+                    changes.getCost(c));
+            if (routeCache != null) {
+                routeCache.applyChange(changes.getSrc(c) - 1, changes.getDest(c) - 1, oldCost,
+                        graph.getCost(changes.getSrc(c) - 1, changes.getDest(c) - 1));
+            }
         }
     }
 
     /**
-     * gets path for message and formats string to output to file
-     * 
-     * @param a   adjacency matrix of network topology
-     * @param msg message to send
-     * @return string formatted as “from <x> to <y>: hops <hop1> <hop2> <...>;
-     *         message: <message>”
+     * To serve the last state if asked to, then close the output stream and
+     * stop the workers. Each batch of changes the daemon takes is routed as the
+     * run routed them, repairing the trees with --incremental and running
+     * Dijkstra again otherwise. With --hierarchy or --point-to-point, cost and
+     * path queries are answered from a ContractionHierarchy or by a
+     * PointToPointEngine given every change.
      */
-    public static String getMessageEntry(int[][] a, Message msg, int offset) {
-        // container for string to return
-        String ret = "";
-        // shortest path from message src to all reachable nodes
-        List<Link> nprime = dijkstra(a, msg.getSrc());
-        // Destination link for message
-        // Used for hopping in reverse direction from destination to soure
-        Link destLink = null;
-        // To hold hops for message path (will be in reverse direction at first)
-        List<Integer> hops = new ArrayList<Integer>();
-        // for each link in the shortest path tree from message source
-        for (Link link : nprime) {
-            // looking for destination in nprime
-            // because msg is in human form (first node is 1)
-            if (link.getDest() == msg.getDest() - 1) {
-                // set dest link
-                destLink = link;
-                // add to hops
-                hops.add(destLink.getDest() - (1 - offset));
+    private static void finish(RouterOptions options, final CsrGraph graph, int offset) throws IOException {
+        boolean failed = false;
+        if (options.getServeAddress() != null) {
+            output.flush();
+            // the next state is routed into a second table kept the same way
+            String storage = options.getForwardingTableStorage();
+            ForwardingTable spare = ForwardingTable.create(graph.getNumberOfNodes(),
+                    storage.startsWith("mmap:") ? storage + ".spare" : storage);
+            RouterDaemon daemon = new RouterDaemon(graph, offset, table, spare, new RouterDaemon.Router() {
+                public void apply(LinkFile changes, ForwardingTable into) {
+                    // the table the fill below writes
+                    table = into;
+                    if (paths != null) {
+                        for (int c = 0; c < changes.getCount(); c++) {
+                            int oldCost = AlgorithmUtils.applyChange(graph, changes.getSrc(c), changes.getDest(c),
+                                    changes.getCost(c));
+                            paths.applyChange(graph, changes.getSrc(c) - 1, changes.getDest(c) - 1, oldCost);
+                        }
+                        fillFromTrees(paths);
+                    } else {
+                        applyChanges(graph, changes);
+                        fillForwardingTables(graph);
+                    }
+                }
+            });
+            ContractionHierarchy hierarchy = null;
+            if (options.isHierarchy()) {
+                hierarchy = serveHierarchy(daemon, graph);
+            } else if (options.getLandmarks() >= 0) {
+                servePointToPoint(daemon, graph, options.getLandmarks());
+            }
+            daemon.serve(options.getServeAddress());
+            if (verbose) {
+                AlgorithmUtils.p(daemon.getStats());
+                if (hierarchy != null) {
+                    AlgorithmUtils.p(hierarchy.getStats());
+                }
             }
+            failed = daemon.hasFailed();
+        }
+        close();
+        if (failed) {
+            // reported by the daemon
+            System.exit(1);
+        }
+    }
+
+    /**
+     * To have the daemon answer cost and path queries from a contraction
+     * hierarchy. It is built on a copy of the network, as its queries read the
+     * network while the updater changes it, and the copy and the hierarchy are
+     * given each batch of changes once it is routed.
+     *
+     * @return the hierarchy, for its stats
+     */
+    private static ContractionHierarchy serveHierarchy(RouterDaemon daemon, CsrGraph graph) {
+        final CsrGraph network = graph.copy();
+        final ContractionHierarchy hierarchy = new ContractionHierarchy(network);
+        if (verbose) {
+            AlgorithmUtils.p(hierarchy.getStats());
         }
-        // hop from destination in reverse order to source
-        while (destLink.getSrc() != (msg.getSrc() - 1)) {
-            // check every link in shortest path tree
-            for (Link link : nprime) {
-                // if link is source of current dest link, hop
-                if (link.getDest() == destLink.getSrc()) {
-                    destLink = link;
-                    hops.add(destLink.getDest() - (1 - offset));
+        daemon.setPathQueries(new RouterDaemon.PathQueries() {
+            public void apply(LinkFile changes) {
+                for (int c = 0; c < changes.getCount(); c++) {
+                    int u = changes.getSrc(c) - 1;
+                    int v = changes.getDest(c) - 1;
+                    AlgorithmUtils.applyChange(network, changes.getSrc(c), changes.getDest(c), changes.getCost(c));
+                    hierarchy.applyChange(u, v, network.getCost(u, v));
+                }
+            }
+
+            public int cost(int src, int dest) {
+                int cost = hierarchy.distance(src, dest);
+                return cost == ContractionHierarchy.INFINITY ? -1 : cost;
+            }
+
+            public ShortestPath path(int src, int dest) {
+                hierarchy.run(src, dest);
+                return hierarchy;
+            }
+        });
+        return hierarchy;
+    }
+
+    /**
+     * To have the daemon answer cost and path queries by searching a copy of
+     * the network from both ends, given each batch of changes once it is
+     * routed. The landmarks are picked again after each batch, as the bounds
+     * they give only hold for the costs they were picked on.
+     *
+     * @param landmarks number of ALT landmarks, 0 for plain bidirectional
+     *                  Dijkstra
+     */
+    private static void servePointToPoint(RouterDaemon daemon, CsrGraph graph, final int landmarks) {
+        final CsrGraph network = graph.copy();
+        final PointToPointEngine engine = new PointToPointEngine(network.getNumberOfNodes());
+        engine.setLandmarks(network, landmarks);
+        daemon.setPathQueries(new RouterDaemon.PathQueries() {
+            public void apply(LinkFile changes) {
+                for (int c = 0; c < changes.getCount(); c++) {
+                    AlgorithmUtils.applyChange(network, changes.getSrc(c), changes.getDest(c), changes.getCost(c));
+                }
+                if (landmarks > 0) {
+                    engine.setLandmarks(network, landmarks);
                 }
             }
+
+            public int cost(int src, int dest) {
+                int cost = engine.run(network, src, dest);
+                return cost == PointToPointEngine.INFINITY ? -1 : cost;
+            }
+
+            public ShortestPath path(int src, int dest) {
+                engine.run(network, src, dest);
+                return engine;
+            }
+        });
+    }
+
+    /**
+     * To close the output stream and stop the workers
+     */
+    private static void close() {
+        if (verbose) {
+            AlgorithmUtils.p(messageRouter.getStats());
+            if (delta != null) {
+                AlgorithmUtils.p(delta.getStats());
+            }
+        }
+        output.close();
+        Metrics.finish();
+        if (workers != null) {
+            workers.shutdown();
         }
-        // add the source (human readable form)
-        hops.add(msg.getSrc() - 1 - (1 - offset));
-        // string format and return
-        ret = ret + "from " + (msg.getSrc() - (1 - offset)) + " to " + (msg.getDest() - (1 - offset)) + ": hops";
-        for (int i = 0; i < hops.size(); i++) {
-            ret = ret + " " + (hops.get(hops.size() - i - 1) + 1) + "";
+        if (deltaStepping != null) {
+            deltaStepping.shutdown();
         }
-        ret = ret + "; message: " + msg.getMsg() + "\n";
-        return ret;
     }
 
     /**
-     * To get all forwarding entries for each source router in Djikstra
+     * Run's least-cost algorithm and handles file printing format
      * 
-     * @param nprime        least-cost tree from Dijkstra on a single node
-     * @param numberOfNodes number of nodes in network
-     * @return formatted forwarding tables to output to file
+     * @param graph graph to run algorithm on
      */
-    public static String getForwardingEntries(List<Link> nprime, int numberOfNodes, int offset) {
-        String ret = "";
-        // one table for each destination router
-        for (int i = 1; i <= numberOfNodes; i++) {
-            ret = ret + getForwardingEntry(nprime, i, offset);
+    public static void runDijkstraAndPrintToFile(CsrGraph graph, int offset) {
+        fillForwardingTables(graph);
+        // print forwarding table of every router and the hops of each message to
+        // output file
+        printTable(offset);
+    }
+
+    /**
+     * To fill the forwarding table of every router, serially or on the workers
+     *
+     * @param graph graph to run algorithm on
+     */
+    private static void fillForwardingTables(CsrGraph graph) {
+        int numberOfNodes = graph.getNumberOfNodes();
+        if (workers == null) {
+            // one workspace shared by every run below
+            Workspace workspace = new Workspace(numberOfNodes);
+            // Run Dijkstra for every router
+            for (int i = 1; i <= numberOfNodes; i++) {
+                fillForwardingTable(workspace, graph, i);
+            }
+        } else {
+            computeForwardingTables(graph);
         }
-        return ret;
     }
 
     /**
-     * To get individual forwarding entry for a single source router in Dijkstra
+     * To compute the forwarding tables of every router on the workers. Worker w
+     * takes routers 1 + w, 1 + w + numberOfWorkers, and so on, so slow and fast
+     * routers are spread evenly. Each fills its own rows of the table.
      * 
-     * @param nprime      least-cost tree from Dijkstra on a single node
-     * @param destination destination node to find next hop
-     * @return formatted string for specific forwarding entry
+     * @param graph graph to run algorithm on
      */
-    public static String getForwardingEntry(List<Link> nprime, int destination, int offset) {
-        Link destLink = null;
-        int cost = -1;
-        int nextHop = -1;
-        // for every link in shortest spanning tree from router
-        for (Link link : nprime) {
-            // if dest is dest in human readable
-            if (link.getDest() == destination - 1) {
-                // set cost and set dest
-                cost = link.getCost();
-                destLink = link;
+    private static void computeForwardingTables(CsrGraph graph) {
+        int numberOfNodes = graph.getNumberOfNodes();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numberOfWorkers);
+        for (int w = 0; w < numberOfWorkers; w++) {
+            final int start = 1 + w;
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    Workspace workspace = new Workspace(numberOfNodes);
+                    for (int i = start; i <= numberOfNodes; i += numberOfWorkers) {
+                        fillForwardingTable(workspace, graph, i);
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> result : workers.invokeAll(tasks)) {
+                result.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
         }
-        // find next hop
-        while (destLink.getSrc() != (nprime.get(0).getSrc())) {
-            for (Link link : nprime) {
-                if (link.getDest() == destLink.getSrc()) {
-                    destLink = link;
-                }
+    }
+
+    /**
+     * Scratch space for building forwarding tables, one per thread
+     */
+    private static class Workspace {
+        final DijkstraEngine engine;
+        final int[] firstHop;
+        final int[] cost;
+
+        Workspace(int numberOfNodes) {
+            engine = new DijkstraEngine(numberOfNodes);
+            firstHop = new int[numberOfNodes];
+            cost = new int[numberOfNodes];
+        }
+    }
+
+    /**
+     * To fill the forwarding table row of a router, taking its tree from the
+     * route cache or running Dijkstra for it
+     * 
+     * @param workspace scratch space of this thread
+     * @param graph     network topology
+     * @param source    source router
+     */
+    private static void fillForwardingTable(Workspace workspace, CsrGraph graph, int source) {
+        RouteCache.Tree tree = routeCache == null ? null : routeCache.get(source - 1);
+        if (tree != null) {
+            long begin = Metrics.begin();
+            computeFirstHops(source, tree.getPredecessors(), null, 0, workspace.firstHop);
+            setForwardingRow(source, tree.getDistances(), workspace.firstHop, workspace.cost);
+            Metrics.end(Metrics.FORWARDING, begin);
+            return;
+        }
+        if (deltaStepping != null) {
+            long begin = Metrics.begin();
+            deltaStepping.run(graph, source - 1);
+            Metrics.end(Metrics.DIJKSTRA, begin);
+            if (routeCache != null) {
+                routeCache.put(source - 1, deltaStepping.getDistances(), deltaStepping.getPredecessors());
             }
+            // no settle order, as nodes are reached in parallel
+            begin = Metrics.begin();
+            computeFirstHops(source, deltaStepping.getPredecessors(), null, 0, workspace.firstHop);
+            setForwardingRow(source, deltaStepping.getDistances(), workspace.firstHop, workspace.cost);
+            Metrics.end(Metrics.FORWARDING, begin);
+            return;
+        }
+        DijkstraEngine engine = workspace.engine;
+        long begin = Metrics.begin();
+        engine.run(graph, source - 1);
+        Metrics.end(Metrics.DIJKSTRA, begin);
+        if (routeCache != null) {
+            routeCache.put(engine);
         }
-        // next hop
-        nextHop = destLink.getDest() + 1;
-        return (destination - (1 - offset)) + " " + (nextHop - (1 - offset)) + " " + cost + "\n";
+        begin = Metrics.begin();
+        computeFirstHops(source, engine.getPredecessors(), engine.getOrder(), engine.getSettledCount(),
+                workspace.firstHop);
+        setForwardingRow(source, engine.getDistances(), workspace.firstHop, workspace.cost);
+        Metrics.end(Metrics.FORWARDING, begin);
     }
 
     /**
-     * To print a tree as given by Dijkstra
+     * To set the forwarding table row of a router. A destination that cannot be
+     * reached gets the router itself as next hop and cost -1.
      * 
-     * @param nprime proprietary list of Links format for result of Dijkstra
+     * @param source   source router
+     * @param dist     cost to every node (0-based), DijkstraEngine.INFINITY if it
+     *                 cannot be reached
+     * @param firstHop next hop to every node, as given by computeFirstHops, which
+     *                 is overwritten
+     * @param cost     scratch row of costs
      */
-    public static void printTree(List<Link> nprime) {
-        // Dont ask.
-        // Source comes in as 1-5
-        List<Integer> sources = new ArrayList<Integer>();
-        List<Integer> dests = new ArrayList<Integer>();
-        int source = -1;
-        for (Link link : nprime) {
-            if (link.getCost() == 0) {
-                // is source
-                source = link.getSrc();
-                continue;
-            } else if (sources.contains(link.getSrc())) {
-                AlgorithmUtils.p("");
-                System.out.print(link.getSrc() + "->" + link.getDest());
-            } else if (!(dests.contains(link.getSrc()))) {
-                System.out.print(link.getSrc() + "->" + link.getDest());
+    private static void setForwardingRow(int source, int[] dist, int[] firstHop, int[] cost) {
+        for (int v = 0; v < dist.length; v++) {
+            if (dist[v] == DijkstraEngine.INFINITY) {
+                firstHop[v] = source - 1;
+                cost[v] = -1;
             } else {
-                System.out.print("->" + link.getDest());
+                cost[v] = dist[v];
             }
-            dests.add(link.getDest());
-            sources.add(link.getSrc());
         }
-        AlgorithmUtils.p("");
+        table.setRow(source - 1, firstHop, cost);
     }
 
     /**
-     * Dijkstra. Calculates least-cost tree from a single node.
+     * To get the next hop from a source to every node of its least-cost tree in
+     * one pass. In settle order a node's predecessor always comes first, so its
+     * first hop is already known: it is the node itself when the predecessor is
+     * the source, and the predecessor's first hop otherwise. Without the settle
+     * order, each walk up the tree stops at the first node already done and
+     * fills in the nodes it passed, which is still linear overall.
      * 
-     * @param adjacencyMatrix network topology
-     * @param source          source node
-     * @return proprietary list of links with least-cost tree
+     * @param source   source node
+     * @param pred     node every node is reached through (0-based), -1 if it
+     *                 cannot be reached
+     * @param order    nodes in settle order, or null if not known
+     * @param count    number of nodes in order
+     * @param firstHop filled with the next hop to every node (0-based), -1 if it
+     *                 cannot be reached
      */
-    public static List<Link> dijkstra(int[][] adjacencyMatrix, int source) {
-        if (source < 1 || source > adjacencyMatrix.length) {
-            System.out.println("Source out of bounds");
-            return null;
+    public static void computeFirstHops(int source, int[] pred, int[] order, int count, int[] firstHop) {
+        int s = source - 1;
+        if (order != null) {
+            for (int v = 0; v < pred.length; v++) {
+                firstHop[v] = -1;
+            }
+            firstHop[s] = s;
+            for (int i = 1; i < count; i++) {
+                int v = order[i];
+                firstHop[v] = pred[v] == s ? v : firstHop[pred[v]];
+            }
+            return;
         }
-        source = source - 1;
-
-        List<Link> nprime = new ArrayList<Link>();
-        Map<Integer, Distance> distances = new HashMap<Integer, Distance>();
-        // init all distances to 0
-        // Distance -- through, cost
-        for (int i = 0; i < adjacencyMatrix.length; i++) {
-            distances.put(i, new Distance(0, 0));
+        // -2 is not done yet
+        for (int v = 0; v < pred.length; v++) {
+            firstHop[v] = pred[v] == -1 ? -1 : -2;
         }
-        Link currNode = new Link(source, source, 0);
-        // pop off curr node
-        distances.remove(currNode.getSrc());
-        // first in shortest path tree
-
-        nprime.add(currNode);
-
-        // for all nodes in graph
-        for (Map.Entry<Integer, Distance> entry : distances.entrySet()) {
-            // no edge from curr node to entry
-            if (adjacencyMatrix[currNode.getDest()][entry.getKey()] == 0) {
-                continue;
+        firstHop[s] = s;
+        for (int v = 0; v < pred.length; v++) {
+            // walk up to a node that is done
+            int top = v;
+            while (firstHop[top] == -2 && pred[top] != s) {
+                top = pred[top];
             }
-            if ((adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost()) < entry.getValue()
-                    .getCost()) {
-                entry.setValue(new Distance(currNode.getDest(),
-                        (adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost())));
-            } else if ((adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost()) == entry.getValue()
-                    .getCost()) {
-                if (currNode.getDest() < entry.getKey()) {
-                    entry.setValue(new Distance(currNode.getDest(),
-                            (adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost())));
-                }
-            } else if (entry.getValue().getCost() == 0) {
-                entry.setValue(new Distance(currNode.getDest(),
-                        (adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost())));
+            int hop = firstHop[top] == -2 ? top : firstHop[top];
+            // fill in the nodes passed on the way
+            for (int x = v; firstHop[x] == -2; x = pred[x]) {
+                firstHop[x] = hop;
             }
         }
+    }
 
-        // while distance isn't empty
-        while (distances.size() > 0) {
-            Link minNode = new Link(0, 0, 0);
-            for (Map.Entry<Integer, Distance> entry : distances.entrySet()) {
-                // no edge to this node
-                if (entry.getValue().getCost() == 0) {
-                    continue;
-                    // first node with edge
-                } else if (minNode.getCost() == 0) {
-                    minNode = new Link(entry.getValue().getThrough(), entry.getKey(), entry.getValue().getCost());
-                } else if ((entry.getValue().getCost()) < minNode.getCost()) {
-                    minNode = new Link(entry.getValue().getThrough(), entry.getKey(), entry.getValue().getCost());
-                } else {
-                    continue;
-                }
-            }
-            currNode = minNode;
-            nprime.add(currNode);
-            distances.remove(currNode.getDest());
-            for (Map.Entry<Integer, Distance> entry : distances.entrySet()) {
-                if (adjacencyMatrix[currNode.getDest()][entry.getKey()] == 0) {
-                    continue;
-                }
-                if ((adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost()) < entry.getValue()
-                        .getCost()) {
-                    entry.setValue(new Distance(currNode.getDest(),
-                            (adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost())));
-                } else if ((adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost()) == entry
-                        .getValue().getCost()) {
-                    if (currNode.getDest() < entry.getValue().getThrough()) {
-                        entry.setValue(new Distance(currNode.getDest(),
-                                (adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost())));
-                    }
-                } else if (entry.getValue().getCost() == 0) {
-                    entry.setValue(new Distance(currNode.getDest(),
-                            (adjacencyMatrix[currNode.getDest()][entry.getKey()] + currNode.getCost())));
-                }
-            }
+    /**
+     * Handles file printing format for trees that are already computed
+     * 
+     * @param paths least-cost tree of every router
+     */
+    public static void printTreesToFile(IncrementalShortestPaths paths, int offset) {
+        fillFromTrees(paths);
+        printTable(offset);
+    }
 
+    /**
+     * To fill the forwarding table of every router from its kept tree
+     */
+    private static void fillFromTrees(IncrementalShortestPaths paths) {
+        int numberOfNodes = paths.getNumberOfNodes();
+        int[] firstHop = new int[numberOfNodes];
+        int[] cost = new int[numberOfNodes];
+        for (int i = 1; i <= numberOfNodes; i++) {
+            computeFirstHops(i, paths.getPredecessors(i - 1), null, 0, firstHop);
+            setForwardingRow(i, paths.getDistances(i - 1), firstHop, cost);
         }
-        return nprime;
     }
 
-}
\ No newline at end of file
+    /**
+     * To print the forwarding tables and the message paths of this state, or
+     * only what changed since the last one
+     */
+    private static void printTable(int offset) {
+        if (delta != null) {
+            delta.print(output, table, offset);
+            Metrics.endEpoch();
+            return;
+        }
+        table.print(output, offset);
+        messageRouter.print(output, table, offset);
+        Metrics.endEpoch();
+    }
+}
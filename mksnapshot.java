@@ -0,0 +1,44 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: mksnapshot.java
+ * description: To convert the text input of lsrouter and dvrouter into a binary snapshot they can load instantly.
+ */
+import java.io.IOException;
+
+/**
+ * mksnapshot parses a topology file, and optionally a changes and a messages
+ * file, and writes them as a Snapshot. Routers given --snapshot=PATH load it
+ * through a memory map instead of parsing the text again.
+ */
+public class mksnapshot {
+    public static void main(String[] args) throws IOException {
+        // Check for correct arguments
+        if (args.length != 2 && args.length != 4) {
+            System.out.println("Usage: java mksnapshot <topofile> [<changesfile> <messagefile>] <snapshotfile>");
+            System.exit(0);
+        }
+        Snapshot snapshot;
+        try {
+            if (args.length == 4) {
+                snapshot = Snapshot.fromText(args[0], args[1], args[2]);
+            } else {
+                snapshot = Snapshot.fromText(args[0], null, null);
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed line, named with its file and line number
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        String snapshotFile = args[args.length - 1];
+        snapshot.write(snapshotFile);
+        String streams = "";
+        if (snapshot.getChanges() != null) {
+            streams = ", " + snapshot.getChanges().getCount() + " changes, " + snapshot.getMessages().getCount()
+                    + " messages";
+        }
+        AlgorithmUtils.p("wrote " + snapshotFile + ": " + snapshot.getNumberOfNodes() + " routers, "
+                + snapshot.getGraph().getNumberOfLinks() + " links" + streams);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: mkworkload.java
+ * description: To generate topology, changes and messages files for lsrouter and dvrouter.
+ */
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * mkworkload writes a synthetic topology, changes and messages file for load
+ * testing the routers. Files are streamed as they are generated, so they can be
+ * far larger than memory, and the same options and seed always give the same
+ * files.
+ */
+public class mkworkload {
+    public static void main(String[] args) throws FileNotFoundException {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        List<String> files = new ArrayList<String>();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (!arg.startsWith("--")) {
+                files.add(arg);
+            } else if (arg.startsWith("--nodes=")) {
+                generator.nodes = (int) parseNumber(arg, 2);
+            } else if (arg.startsWith("--degree=")) {
+                generator.degree = parseDecimal(arg, 0);
+            } else if (arg.startsWith("--degree-dist=") && isOneOf(value, "uniform", "powerlaw")) {
+                generator.degreeDistribution = value;
+            } else if (arg.startsWith("--powerlaw=")) {
+                generator.powerLawExponent = parseDecimal(arg, 2.01);
+            } else if (arg.startsWith("--cost-dist=") && isOneOf(value, "uniform", "exponential", "normal")) {
+                generator.costDistribution = value;
+            } else if (arg.startsWith("--min-cost=")) {
+                generator.minCost = (int) parseNumber(arg, 1);
+            } else if (arg.startsWith("--max-cost=")) {
+                generator.maxCost = (int) parseNumber(arg, 1);
+            } else if (arg.startsWith("--seed=")) {
+                generator.seed = parseNumber(arg, Long.MIN_VALUE);
+            } else if (arg.startsWith("--changes=")) {
+                generator.changes = parseNumber(arg, 0);
+            } else if (arg.startsWith("--churn=") && isOneOf(value, "flap", "drift", "remove", "mixed")) {
+                generator.churn = value;
+            } else if (arg.startsWith("--messages=")) {
+                generator.messages = parseNumber(arg, 0);
+            } else if (arg.startsWith("--skew=")) {
+                generator.skew = parseDecimal(arg, 0);
+            } else if (arg.startsWith("--base=")) {
+                generator.base = (int) parseNumber(arg, 0);
+            } else {
+                System.out.println("Unknown option " + arg);
+                usage();
+            }
+        }
+        // Check for correct number of arguments
+        if (files.size() != 3 || generator.maxCost < generator.minCost) {
+            usage();
+        }
+        generator.write(files.get(0), files.get(1), files.get(2));
+        AlgorithmUtils.p("wrote " + generator.nodes + " routers, " + generator.getNumberOfLinks() + " links, "
+                + generator.changes + " changes, " + generator.messages + " messages");
+    }
+
+    private static boolean isOneOf(String value, String... choices) {
+        for (String choice : choices) {
+            if (value.equals(choice)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * To get the whole number after the = of an option
+     *
+     * @param min least value allowed
+     */
+    private static long parseNumber(String arg, long min) {
+        try {
+            long value = Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to usage
+        }
+        System.out.println("Option " + arg + " needs a number of at least " + min);
+        usage();
+        return 0;
+    }
+
+    /**
+     * To get the decimal number after the = of an option
+     *
+     * @param min least value allowed
+     */
+    private static double parseDecimal(String arg, double min) {
+        try {
+            double value = Double.parseDouble(arg.substring(arg.indexOf('=') + 1));
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to usage
+        }
+        System.out.println("Option " + arg + " needs a number of at least " + min);
+        usage();
+        return 0;
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java mkworkload [options] <topofile> <changesfile> <messagefile>");
+        System.out.println("  --nodes=N          number of routers (default 1000)");
+        System.out.println("  --degree=D         average number of links per router (default 4)");
+        System.out.println("  --degree-dist=X    uniform or powerlaw (default uniform)");
+        System.out.println("  --powerlaw=G       exponent of the powerlaw degree distribution (default 2.5)");
+        System.out.println("  --cost-dist=X      uniform, exponential or normal (default uniform)");
+        System.out.println("  --min-cost=N       least link cost (default 1)");
+        System.out.println("  --max-cost=N       greatest link cost (default 20)");
+        System.out.println("  --seed=N           seed, the same seed giving the same files (default 1)");
+        System.out.println("  --changes=N        number of changes (default 100)");
+        System.out.println("  --churn=X          flap, drift, remove or mixed (default mixed)");
+        System.out.println("  --messages=N       number of messages (default 100)");
+        System.out.println("  --skew=S           Zipf exponent of router popularity, 0 = even (default 1)");
+        System.out.println("  --base=N           number of the first router (default 1)");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: PointToPointEngineTest.java
+ * description: To check the paths PointToPointEngine finds against the trees of DijkstraEngine.
+ */
+import java.util.Random;
+
+/**
+ * PointToPointEngineTest runs PointToPointEngine, with and without landmarks,
+ * between every pair of nodes of random networks and checks that each cost and
+ * path is the one DijkstraEngine's tree from the source gives, ties broken the
+ * same way. Small costs make ties, and few links leave nodes unreachable.
+ *
+ * Usage: java PointToPointEngineTest [seed] [networks]
+ */
+public class PointToPointEngineTest {
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        int networks = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Random random = new Random(seed);
+        long checked = 0;
+        for (int t = 0; t < networks; t++) {
+            CsrGraph graph = randomGraph(random);
+            int n = graph.getNumberOfNodes();
+            PointToPointEngine engine = new PointToPointEngine(n);
+            DijkstraEngine dijkstra = new DijkstraEngine(n);
+            // plain bidirectional Dijkstra, then ALT
+            for (int landmarks = 0; landmarks <= 3; landmarks += 3) {
+                engine.setLandmarks(graph, landmarks);
+                for (int source = 0; source < n; source++) {
+                    dijkstra.run(graph, source);
+                    for (int target = 0; target < n; target++) {
+                        check(engine, dijkstra, graph, source, target, "network " + t + " (seed " + seed
+                                + "), " + landmarks + " landmarks, " + source + " to " + target);
+                        checked++;
+                    }
+                }
+            }
+        }
+        System.out.println("ok: " + checked + " paths over " + networks + " networks");
+    }
+
+    /**
+     * @return network of 2 to 60 nodes, with up to 3 links per node and costs
+     *         up to 3 or up to 50
+     */
+    private static CsrGraph randomGraph(Random random) {
+        int n = 2 + random.nextInt(59);
+        int m = random.nextInt(3 * n);
+        int maxCost = random.nextBoolean() ? 3 : 50;
+        int[] src = new int[m];
+        int[] dest = new int[m];
+        int[] cost = new int[m];
+        int count = 0;
+        for (int i = 0; i < m; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u != v) {
+                src[count] = u;
+                dest[count] = v;
+                cost[count] = 1 + random.nextInt(maxCost);
+                count++;
+            }
+        }
+        return CsrGraph.fromLinks(n, src, dest, cost, count);
+    }
+
+    /**
+     * To run one query and compare it with the tree DijkstraEngine holds from
+     * its source
+     */
+    private static void check(PointToPointEngine engine, DijkstraEngine dijkstra, CsrGraph graph, int source,
+            int target, String query) {
+        int cost = engine.run(graph, source, target);
+        if (cost != dijkstra.getDistance(target)) {
+            fail(query + ": cost " + cost + ", Dijkstra " + dijkstra.getDistance(target));
+        }
+        if (!dijkstra.isReachable(target)) {
+            if (engine.isReachable() || engine.getPathLength() != 0) {
+                fail(query + ": path to a node Dijkstra cannot reach");
+            }
+            return;
+        }
+        // walk the tree back from the target, comparing from the end
+        int i = engine.getPathLength() - 1;
+        for (int v = target;; v = dijkstra.getPredecessor(v), i--) {
+            if (i < 0 || engine.getPathNode(i) != v) {
+                fail(query + ": path differs from Dijkstra's at " + v);
+            }
+            if (v == source) {
+                break;
+            }
+        }
+        if (i != 0) {
+            fail(query + ": path longer than Dijkstra's");
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED " + message);
+        System.exit(1);
+    }
+}
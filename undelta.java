@@ -0,0 +1,175 @@
+/**
+ * author: Andrew Smith
+ * last edited: 10/17/26
+ * file: undelta.java
+ * description: To expand the output lsrouter and dvrouter write with --delta back into their full output.
+ */
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * undelta reads output written with --delta, whose first state is in full and
+ * whose later states are deltas (see DeltaOutput), and writes every state in
+ * full, the same as the router writes without --delta.
+ */
+public class undelta {
+    private static BufferedReader reader;
+    private static int lineNumber;
+    private static String fileName;
+
+    public static void main(String[] args) throws IOException {
+        // Check for correct arguments
+        if (args.length != 2) {
+            System.out.println("Usage: java undelta <deltafile> <outputfile>");
+            System.exit(0);
+        }
+        fileName = args[0];
+        reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), Charset.defaultCharset()));
+        OutputBuffer output = new OutputBuffer(args[1]);
+        int states = 0;
+        try {
+            // first table, which gives the number of routers and the offset
+            List<int[]> first = new ArrayList<int[]>();
+            String line = readLine();
+            while (line != null && line.length() > 0) {
+                first.add(parseNumbers(line, 3));
+                line = readLine();
+            }
+            int n = first.size();
+            int offset = n == 0 ? 1 : first.get(0)[0];
+            // entry (i, j) at index i * n + j, as printed
+            int[] nextHop = new int[n * n];
+            int[] cost = new int[n * n];
+            for (int i = 0; i < n; i++) {
+                nextHop[i] = first.get(i)[1];
+                cost[i] = first.get(i)[2];
+            }
+            for (int j = 1; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    int[] entry = parseNumbers(readLine(), 3);
+                    nextHop[j * n + i] = entry[1];
+                    cost[j * n + i] = entry[2];
+                }
+                expectBlank(readLine());
+            }
+            // message paths, each followed by a blank line
+            List<String> messages = new ArrayList<String>();
+            line = readLine();
+            while (line != null && !line.startsWith("delta ")) {
+                messages.add(line);
+                expectBlank(readLine());
+                line = readLine();
+            }
+            print(output, n, offset, nextHop, cost, messages);
+            states++;
+            // each delta
+            while (line != null) {
+                line = readLine();
+                while (line != null && line.length() > 0) {
+                    int space = line.indexOf(' ');
+                    if (line.startsWith("from ", space + 1)) {
+                        int m = parseNumbers(line.substring(0, space), 1)[0];
+                        if (m < 1 || m > messages.size()) {
+                            throw error("no message " + m);
+                        }
+                        messages.set(m - 1, line.substring(space + 1));
+                    } else {
+                        int[] entry = parseNumbers(line, 4);
+                        int i = entry[0] - offset;
+                        int j = entry[1] - offset;
+                        if (i < 0 || i >= n || j < 0 || j >= n) {
+                            throw error("no entry " + entry[0] + " " + entry[1]);
+                        }
+                        nextHop[i * n + j] = entry[2];
+                        cost[i * n + j] = entry[3];
+                    }
+                    line = readLine();
+                }
+                if (line == null) {
+                    throw error("delta does not end with a blank line");
+                }
+                print(output, n, offset, nextHop, cost, messages);
+                states++;
+                line = readLine();
+                if (line != null && !line.startsWith("delta ")) {
+                    throw error("expected a delta but found '" + line + "'");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // malformed line, named with its line number
+            AlgorithmUtils.p(e.getMessage());
+            System.exit(1);
+            return;
+        } finally {
+            reader.close();
+        }
+        output.close();
+        AlgorithmUtils.p("wrote " + states + " states to " + args[1]);
+    }
+
+    /**
+     * To print one state in full, each table and each message path followed by
+     * a blank line
+     */
+    private static void print(OutputBuffer out, int n, int offset, int[] nextHop, int[] cost,
+            List<String> messages) {
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                out.print(i + offset);
+                out.print(' ');
+                out.print(nextHop[j * n + i]);
+                out.print(' ');
+                out.print(cost[j * n + i]);
+                out.print('\n');
+            }
+            out.println();
+        }
+        for (String message : messages) {
+            out.print(message);
+            out.print('\n');
+            out.println();
+        }
+    }
+
+    private static String readLine() throws IOException {
+        lineNumber++;
+        return reader.readLine();
+    }
+
+    /**
+     * @param count number of whole numbers the line must hold
+     */
+    private static int[] parseNumbers(String line, int count) {
+        if (line == null) {
+            throw error("unexpected end of file");
+        }
+        String[] fields = line.trim().split(" +");
+        if (fields.length != count) {
+            throw error("expected " + count + " numbers but found '" + line + "'");
+        }
+        int[] numbers = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                numbers[i] = Integer.parseInt(fields[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw error("expected " + count + " numbers but found '" + line + "'");
+        }
+        return numbers;
+    }
+
+    private static void expectBlank(String line) {
+        if (line == null || line.length() > 0) {
+            throw error("expected a blank line");
+        }
+    }
+
+    private static IllegalArgumentException error(String reason) {
+        return new IllegalArgumentException(fileName + ":" + lineNumber + ": " + reason);
+    }
+}